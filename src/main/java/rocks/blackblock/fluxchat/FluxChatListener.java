@@ -26,6 +26,7 @@
 package rocks.blackblock.fluxchat;
 
 import com.google.gson.JsonObject;
+import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
@@ -34,23 +35,19 @@ import com.velocitypowered.api.event.player.PlayerChatEvent;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
-import com.velocitypowered.api.proxy.ServerConnection;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import rocks.blackblock.fluxchat.api.FluxChatFormat;
 import rocks.blackblock.fluxchat.api.events.FluxChatEvent;
-import rocks.blackblock.fluxchat.api.events.FluxChatMessageFormedEvent;
-import rocks.blackblock.fluxchat.api.events.FluxChatMessageSendEvent;
+import rocks.blackblock.fluxchat.chat.ChatMessage;
 import rocks.blackblock.fluxchat.config.FluxChatConfig;
+import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
 import rocks.blackblock.fluxchat.placeholder.PlaceholderParameters;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
-import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 public class FluxChatListener {
@@ -80,7 +77,7 @@ public class FluxChatListener {
             FluxChatPlugin.pushEvent(object);
         }
 
-        FluxChatPlayer gplayer = FluxChatPlayer.get(player);
+        FluxChatPlayer gplayer = FluxChatPlayer.REGISTRY.register(player);
         TextComponent message = gplayer.format("login", null);
 
         if (message == null) {
@@ -101,8 +98,8 @@ public class FluxChatListener {
     public void onJoinServer(ServerConnectedEvent e) {
         Player player = e.getPlayer();
 
-        // Force clear the cached player
-        FluxChatPlayer.remove(player);
+        // Keep the player's state, only update what belongs to the server
+        FluxChatPlayer gplayer = FluxChatPlayer.REGISTRY.refresh(player);
 
         RegisteredServer server = e.getServer();
         ServerInfo info = server.getServerInfo();
@@ -112,7 +109,6 @@ public class FluxChatListener {
             FluxChatPlugin.pushEvent(object);
         }
 
-        FluxChatPlayer gplayer = FluxChatPlayer.get(player);
         TextComponent message = gplayer.format("join", this.getServerParameters(info));
 
         if (message == null) {
@@ -142,15 +138,50 @@ public class FluxChatListener {
     }
 
     /**
-     * Listen for PlayerChat events and broadcast them to every server
+     * Forget everything about the player once every listener has handled the disconnect
+     *
+     * @since    3.3.0
+     */
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnected(DisconnectEvent e) {
+        Player player = e.getPlayer();
+
+        plugin.getMetaWrites().flush(player.getUniqueId());
+        FluxChatPlayer.remove(player);
+        plugin.getFormatCache().invalidate(player.getUniqueId());
+        plugin.getPlaceholderValues().invalidate(player.getUniqueId());
+        plugin.getAsyncPlaceholders().forget(player.getUniqueId());
+    }
+
+    /**
+     * Listen for PlayerChat events and broadcast them to every server.
+     * Nothing in here blocks the player's connection thread:
+     * the event continues once the FluxChatEvent has been handled,
+     * and the actual rendering & delivery happens in the chat pipeline.
      */
     @Subscribe(order = PostOrder.NORMAL)
-    public void onChat(PlayerChatEvent e) {
+    public EventTask onChat(PlayerChatEvent e) {
         Player player = e.getPlayer();
         ProxyServer proxy = plugin.getProxy();
 
         FluxChatEvent fluxChatEvent = new FluxChatEvent(player, e);
-        proxy.getEventManager().fire(fluxChatEvent).join();
+
+        return EventTask.resumeWhenComplete(proxy.getEventManager().fire(fluxChatEvent).thenAccept(event -> {
+            try {
+                this.handleChat(e, event);
+            } catch (Exception ex) {
+                ErrorSentry.capture(ex);
+            }
+        }));
+    }
+
+    /**
+     * Filter the chat message & queue it in the chat pipeline
+     *
+     * @since    3.3.0
+     */
+    private void handleChat(PlayerChatEvent e, FluxChatEvent fluxChatEvent) {
+        Player player = e.getPlayer();
 
         if (!fluxChatEvent.getResult().isAllowed()) {
             return;
@@ -160,7 +191,7 @@ public class FluxChatListener {
 
         // are permissions required to send chat messages?
         // does the player have perms to send the message
-        if (config.isRequireSendPermission() && !player.hasPermission("FluxChat.send")) {
+        if (config.isRequireSendPermission() && !FluxChatPlayer.get(player).hasPermission("FluxChat.send")) {
 
             // if the message should be passed through when the player doesn't have the permission
             if (config.isRequirePermissionPassthrough()) {
@@ -184,15 +215,10 @@ public class FluxChatListener {
         // Simple chat messages takes a player out of AFK
         gplayer.setAfk(false);
 
-        TextComponent message = Component.text(e.getMessage());
-
-        PlaceholderParameters parameters = new PlaceholderParameters();
-        parameters.set("message", message);
-
-        TextComponent outgoing_message = gplayer.format("chat", parameters);
+        FluxChatFormat format = plugin.getFormat(player, "chat").orElse(null);
 
         // couldn't find a format for the player
-        if (outgoing_message == null) {
+        if (format == null) {
             if (!config.isPassthrough()) {
                 e.setResult(PlayerChatEvent.ChatResult.denied());
             }
@@ -200,57 +226,31 @@ public class FluxChatListener {
             return;
         }
 
-        // we have a format, so cancel the event.
-        e.setResult(PlayerChatEvent.ChatResult.denied());
+        TextComponent message = Component.text(e.getMessage());
 
-        PlaceholderParameters self_parameters = new PlaceholderParameters();
-        message = message.color(NamedTextColor.AQUA);
-        self_parameters.set("message", message);
+        PlaceholderParameters parameters = new PlaceholderParameters();
+        parameters.set("message", message);
 
-        TextComponent self_message = gplayer.format("chat", self_parameters);
+        PlaceholderParameters self_parameters = new PlaceholderParameters();
+        self_parameters.set("message", message.color(NamedTextColor.AQUA));
 
-        FluxChatFormat format = plugin.getFormat(player, "chat").orElse(null);
+        ChatMessage chat_message = new ChatMessage(plugin, gplayer, format, e.getMessage(), parameters, self_parameters);
 
-        FluxChatMessageFormedEvent formedEvent = new FluxChatMessageFormedEvent(player, format, e.getMessage(), outgoing_message);
-        proxy.getEventManager().fireAndForget(formedEvent);
+        boolean queued = plugin.getChatPipeline().submit(
+                player.getUniqueId(),
+                chat_message::filter,
+                chat_message::render,
+                chat_message::deliver
+        );
 
-        if (config.isLogChatGlobal()) {
-            plugin.getLogger().info(PlainTextComponentSerializer.plainText().serialize(outgoing_message));
+        if (!queued) {
+            // The pipeline is overloaded: let the backend server handle this message
+            ErrorSentry.logWarning("Chat pipeline is full, passing the message of " + player.getUsername() + " through");
+            return;
         }
 
-        Map<ServerInfo, TextComponent> server_output = new HashMap<>();
-        TextComponent current_message = null;
-
-        // send the message to online players
-        for (Player p : proxy.getAllPlayers()) {
-            boolean cancelled = plugin.getConfig().isRequireReceivePermission() && !player.hasPermission("FluxChat.receive");
-            FluxChatMessageSendEvent sendEvent = new FluxChatMessageSendEvent(player, p, format, e.getMessage(), cancelled);
-            proxy.getEventManager().fire(sendEvent).join();
-
-            if (!sendEvent.getResult().isAllowed()) {
-                continue;
-            }
-
-            ServerConnection server_connection = p.getCurrentServer().orElse(null);
-
-            if (server_connection == null) {
-                continue;
-            }
-
-            ServerInfo server_info = server_connection.getServerInfo();
-
-            if (server_info == null) {
-                continue;
-            }
-
-            if (player.getUniqueId().equals(p.getUniqueId())) {
-                current_message = gplayer.formatForServer(server_info, "chat", self_parameters);
-            } else {
-                current_message = gplayer.formatForServer(server_info, "chat", parameters);
-            }
-
-            p.sendMessage(player, current_message);
-        }
+        // we have a format, so cancel the event.
+        e.setResult(PlayerChatEvent.ChatResult.denied());
     }
 
     /**
@@ -6,9 +6,14 @@ import com.velocitypowered.api.proxy.ServerConnection;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import rocks.blackblock.fluxchat.api.FluxChatFormat;
 import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
+import rocks.blackblock.fluxchat.placeholder.ClockService;
+import rocks.blackblock.fluxchat.placeholder.CompiledTemplate;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderMemo;
 import rocks.blackblock.fluxchat.placeholder.PlaceholderParameters;
 import rocks.blackblock.fluxchat.placeholder.SplittedStringList;
 import rocks.blackblock.fluxchat.placeholder.StringSplitter;
+import rocks.blackblock.fluxchat.placeholder.TemplateCache;
+import rocks.blackblock.fluxchat.tab.FluxChatTabList;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.event.ClickEvent;
@@ -20,19 +25,22 @@ import net.kyori.adventure.text.serializer.gson.GsonComponentSerializer;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.cacheddata.CachedDataManager;
+import net.luckperms.api.platform.PlayerAdapter;
+import net.luckperms.api.query.QueryOptions;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.MetaNode;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
 import java.util.*;
 
 public class FluxChatPlayer {
 
-    public Player player;
+    // Replaced on a server switch, while other threads (chat pipeline, tab shards) read it
+    public volatile Player player;
     public final LuckPerms luckperms;
     public final User user;
 
@@ -40,7 +48,8 @@ public class FluxChatPlayer {
     protected String timezone = null;
     protected String nickname = null;
     protected String nickname_color = null;
-    protected DateFormat date_format = null;
+    protected ZoneId zone = null;
+    protected volatile MetaSnapshot meta_snapshot = null;
     protected boolean is_afk = false;
     protected Long afk_since = null;
     protected boolean is_alive = true;
@@ -52,7 +61,7 @@ public class FluxChatPlayer {
     protected int ticks_since_movement = 0;
     public static final Map<String, String> COLOR_MAP = new HashMap<>();
 
-    public static final HashMap<UUID, FluxChatPlayer> CACHE = new HashMap<>();
+    public static final PlayerRegistry REGISTRY = new PlayerRegistry();
     public static LegacyComponentSerializer legacyLinkingSerializer = null;
     public static MiniMessage miniMessage = null;
 
@@ -79,11 +88,97 @@ public class FluxChatPlayer {
      * @since    3.1.0
      */
     private void init() {
-        this.pronouns = this.getMetaValue("pronouns");
-        this.timezone = this.getMetaValue("timezone");
-        this.nickname = this.getMetaValue("nickname");
-        this.nickname_color = this.getMetaValue("nickname_color");
+        this.refreshMeta();
+    }
+
+    /**
+     * Take a new snapshot of the LuckPerms data
+     * and update the values that come from it.
+     * This has to happen whenever the data or the player's context
+     * (like the server it is on) changes.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void refreshMeta() {
+
+        PlayerAdapter<Player> adapter = this.luckperms.getPlayerAdapter(Player.class);
+        QueryOptions query_options = adapter.getQueryOptions(this.player);
+        CachedDataManager data = this.user.getCachedData();
+
+        MetaSnapshot snapshot = MetaSnapshot.create(
+                data.getMetaData(query_options),
+                data.getPermissionData(query_options),
+                FluxChatPlugin.instance.getConfig().getCheckedPermissions()
+        );
+
+        this.meta_snapshot = snapshot;
+
+        String old_nickname = this.nickname;
+
+        this.pronouns = snapshot.getMetaValue("pronouns");
+        this.timezone = snapshot.getMetaValue("timezone");
+        this.updateTimeZone();
+        this.nickname = snapshot.getMetaValue("nickname");
+        this.nickname_color = snapshot.getMetaValue("nickname_color");
         this.fixNickname();
+
+        if (!Objects.equals(old_nickname, this.nickname)) {
+            REGISTRY.updateNickname(this, old_nickname, this.nickname);
+        }
+
+        // Formats & placeholder values might depend on the old data
+        FluxChatPlugin plugin = FluxChatPlugin.instance;
+        plugin.getFormatCache().invalidate(this.player.getUniqueId());
+        plugin.getPlaceholderValues().invalidate(this.player.getUniqueId());
+
+        this.appearanceChanged();
+    }
+
+    /**
+     * Get the current snapshot of the LuckPerms data
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public MetaSnapshot getMetaSnapshot() {
+        return this.meta_snapshot;
+    }
+
+    /**
+     * Does this player have the given permission?
+     * Permissions FluxChat checks itself are answered by the snapshot.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public boolean hasPermission(String permission) {
+
+        Boolean result = this.meta_snapshot.getPermission(permission);
+
+        if (result != null) {
+            return result;
+        }
+
+        return this.player.hasPermission(permission);
+    }
+
+    /**
+     * The player connected to another server.
+     * The LuckPerms data, AFK state & server placeholders stay as they are,
+     * only the state reported by the previous backend server is reset.
+     * The LuckPerms snapshot is rebuilt once the new server is part of the context.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void switchServer(Player player) {
+        this.player = player;
+        this.dimension = null;
+        this.is_alive = true;
+        this.is_invisible = false;
+        this.is_creative = false;
+        this.is_spectator = false;
     }
 
     /**
@@ -112,6 +207,7 @@ public class FluxChatPlayer {
         System.out.println("Got placeholder " + key + " revived to " + component + " and got a text " + result);
 
         placeholders.put(key, result);
+        this.appearanceChanged();
     }
 
     /**
@@ -206,8 +302,10 @@ public class FluxChatPlayer {
     }
 
     public void setNickname(String nickname) {
+        String old_nickname = this.nickname;
         this.nickname = nickname;
         this.fixNickname();
+        REGISTRY.updateNickname(this, old_nickname, this.nickname);
         this.setMetaNode("nickname", this.nickname);
     }
 
@@ -238,27 +336,27 @@ public class FluxChatPlayer {
 
     protected void updateTimeZone() {
         if (this.timezone != null) {
-            try {
-                this.date_format.setTimeZone(TimeZone.getTimeZone(this.timezone));
-            } catch (Exception e) {
-                // Ignore
-            }
+            this.zone = FluxChatPlugin.instance.getClock().getZone(this.timezone);
+        } else {
+            this.zone = null;
         }
     }
 
-    public DateFormat getDateFormat() {
+    /**
+     * Get the current time in this player's timezone,
+     * or in the server's timezone if the player didn't set one
+     *
+     * @since    3.3.0
+     */
+    public String getCurrentTime() {
+
+        ClockService clock = FluxChatPlugin.instance.getClock();
 
-        if (this.date_format == null) {
-            this.date_format = new SimpleDateFormat("HH:mm");
-            this.updateTimeZone();
+        if (this.zone == null) {
+            return clock.getServerTime();
         }
 
-        return this.date_format;
-    }
-
-    public String getCurrentTime() {
-        Date now = new Date();
-        return this.getDateFormat().format(now);
+        return clock.getTime(this.zone);
     }
 
     /**
@@ -266,7 +364,7 @@ public class FluxChatPlayer {
      * @param   name   The name of the value to get
      */
     public String getMetaValue(String name) {
-        return luckperms.getPlayerAdapter(Player.class).getMetaData(this.player).getMetaValue(name);
+        return this.meta_snapshot.getMetaValue(name);
     }
 
     /**
@@ -292,7 +390,11 @@ public class FluxChatPlayer {
             user.data().add(value_node);
         }
 
-        luckperms.getUserManager().saveUser(user);
+        // Several changes in a row are saved at once
+        FluxChatPlugin.instance.getMetaWrites().queue(luckperms.getUserManager(), user);
+
+        FluxChatPlugin.instance.getPlaceholderValues().invalidate(this.player.getUniqueId());
+        this.appearanceChanged();
     }
 
     /**
@@ -426,6 +528,19 @@ public class FluxChatPlayer {
      * @since    3.2.0
      */
     public TextComponent formatForServer(ServerInfo server_info, String format_name, @Nullable PlaceholderParameters parameters) {
+        return this.formatForServer(server_info, format_name, parameters, null);
+    }
+
+    /**
+     * Format the given message,
+     * but use server-specific placeholders first.
+     * Placeholders that only depend on this player are stored in the memo,
+     * so they are only evaluated once per message.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public TextComponent formatForServer(ServerInfo server_info, String format_name, @Nullable PlaceholderParameters parameters, @Nullable PlaceholderMemo memo) {
 
         // Get the format to use for this player
         FluxChatFormat format = FluxChatPlugin.instance.getFormat(this.player, format_name).orElse(null);
@@ -435,7 +550,7 @@ public class FluxChatPlayer {
             return null;
         }
 
-        return this.formatForServer(server_info, format, parameters);
+        return this.formatForServer(server_info, format, parameters, memo);
     }
 
     /**
@@ -446,21 +561,32 @@ public class FluxChatPlayer {
      * @since    3.2.0
      */
     public TextComponent formatForServer(ServerInfo server_info, @NotNull FluxChatFormat format, @Nullable PlaceholderParameters parameters) {
+        return this.formatForServer(server_info, format, parameters, null);
+    }
 
-        // Get the actual text pattern. This might contain placeholders.
-        SplittedStringList main_source = format.getSplittedFormatText();
+    /**
+     * Format the given message,
+     * but use server-specific placeholders first.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public TextComponent formatForServer(ServerInfo server_info, @NotNull FluxChatFormat format, @Nullable PlaceholderParameters parameters, @Nullable PlaceholderMemo memo) {
+
+        // Get the compiled text pattern. Only its placeholders still have to be evaluated.
+        CompiledTemplate main_source = format.getCompiledFormatText();
 
         if (main_source == null) {
             return null;
         }
 
-        TextComponent main_text = this.convertString(server_info, main_source, parameters);
+        TextComponent main_text = main_source.render(this.createResolver(server_info, parameters, memo));
 
         if (main_text == null) {
             return null;
         }
 
-        SplittedStringList hover = format.getSplittedHoverText();
+        CompiledTemplate hover = format.getCompiledHoverText();
         String click_value = format.getClickValue();
 
         if (hover == null && click_value == null) {
@@ -469,14 +595,14 @@ public class FluxChatPlayer {
 
         ClickEvent.Action click_type = format.getClickType();
 
-        if (click_type != null) {
-            click_value = FluxChatPlugin.instance.replacePlaceholders(player, click_value);
+        if (click_type != null && click_value != null) {
+            click_value = FluxChatPlugin.instance.replacePlaceholders(player, format.getCompiledClickValue());
         }
 
         HoverEvent<Component> hover_event;
 
         if (hover != null) {
-            TextComponent hover_text = this.convertString(server_info, hover, parameters);
+            TextComponent hover_text = hover.render(this.createResolver(server_info, parameters, memo));
 
             if (hover_text != null) {
                 hover_event = HoverEvent.showText(hover_text);
@@ -524,14 +650,33 @@ public class FluxChatPlayer {
      * @since    3.2.0
      */
     public TextComponent convertString(ServerInfo server_info, String source, @Nullable PlaceholderParameters parameters) {
-        SplittedStringList splitted = StringSplitter.parse(source);
-        return this.convertString(server_info, splitted, parameters);
+        return this.convertString(server_info, TemplateCache.get(source), parameters);
     }
 
     public TextComponent convertString(ServerInfo server_info, SplittedStringList source, @Nullable PlaceholderParameters parameters) {
+        return FluxChatPlugin.convertString(source, this.createResolver(server_info, parameters, null));
+    }
+
+    /**
+     * Render the given compiled template
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public TextComponent convertString(ServerInfo server_info, CompiledTemplate source, @Nullable PlaceholderParameters parameters) {
+        return source.render(this.createResolver(server_info, parameters, null));
+    }
 
-        // Create the empty result. We'll append to this.
-        TextComponent result = FluxChatPlugin.convertString(source, placeholder_entry -> {
+    /**
+     * Create the resolver for placeholders in the context of this player.
+     * Message parameters are looked up first, then the placeholders of the given server
+     * and finally the registered placeholders.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private PlaceholderResolver createResolver(ServerInfo server_info, @Nullable PlaceholderParameters parameters, @Nullable PlaceholderMemo memo) {
+        return placeholder_entry -> {
 
             String key = placeholder_entry.getContent();
 
@@ -564,10 +709,13 @@ public class FluxChatPlayer {
                 return replacement;
             }
 
-            return FluxChatPlugin.instance.lookupRegisteredPlaceholders(this.player, placeholder_entry);
-        });
+            // Registered placeholders are evaluated once per message when their scope allows it
+            if (memo != null) {
+                return memo.get(placeholder_entry, () -> FluxChatPlugin.instance.resolveRegisteredPlaceholder(this.player, placeholder_entry));
+            }
 
-        return result;
+            return FluxChatPlugin.instance.lookupRegisteredPlaceholders(this.player, placeholder_entry);
+        };
     }
 
     /**
@@ -714,6 +862,25 @@ public class FluxChatPlayer {
         } else {
             this.afk_since = null;
         }
+
+        // The tab display name depends on it
+        FluxChatPlugin.instance.getPlaceholderValues().invalidate(this.player.getUniqueId());
+        this.appearanceChanged();
+    }
+
+    /**
+     * Something that can be shown in this player's tab entry changed
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    protected void appearanceChanged() {
+
+        FluxChatTabList tab_list = FluxChatTabList.instance;
+
+        if (tab_list != null) {
+            tab_list.playerChanged(this.player.getUniqueId());
+        }
     }
 
     /**
@@ -732,15 +899,7 @@ public class FluxChatPlayer {
      * @since    3.0.2
      */
     public static FluxChatPlayer get(Player player) {
-
-        FluxChatPlayer result = FluxChatPlayer.get(player.getUniqueId());
-
-        if (result == null) {
-            result = new FluxChatPlayer(player);
-            CACHE.put(player.getUniqueId(), result);
-        }
-
-        return result;
+        return REGISTRY.get(player);
     }
 
     /**
@@ -750,12 +909,7 @@ public class FluxChatPlayer {
      * @since    3.0.2
      */
     public static FluxChatPlayer get(UUID player_uuid) {
-
-        if (CACHE.containsKey(player_uuid)) {
-            return CACHE.get(player_uuid);
-        }
-
-        return null;
+        return REGISTRY.get(player_uuid);
     }
 
     /**
@@ -780,37 +934,7 @@ public class FluxChatPlayer {
      * @since    3.1.0
      */
     public static FluxChatPlayer getByDisplayName(String display_name) {
-        display_name = display_name.toLowerCase().trim();
-
-        for (Player player : FluxChatPlugin.instance.getProxy().getAllPlayers()) {
-            FluxChatPlayer gplayer = FluxChatPlayer.get(player);
-
-            String nickname = gplayer.getNickname();
-
-            if (nickname != null) {
-                if (display_name.equals(nickname)) {
-                    return gplayer;
-                }
-
-                nickname = nickname.toLowerCase().trim();
-
-                if (display_name.equals(nickname)) {
-                    return gplayer;
-                }
-            }
-
-            String username = player.getUsername();
-
-            if (username != null) {
-                username = username.toLowerCase().trim();
-
-                if (display_name.equals(username)) {
-                    return gplayer;
-                }
-            }
-        }
-
-        return null;
+        return REGISTRY.getByName(display_name);
     }
 
     /**
@@ -853,7 +977,7 @@ public class FluxChatPlayer {
      * @since    3.0.2
      */
     public static void remove(Player player) {
-        CACHE.remove(player.getUniqueId());
+        REGISTRY.remove(player.getUniqueId());
     }
 
     /**
@@ -47,17 +47,27 @@ import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import rocks.blackblock.fluxchat.api.FluxChatFormat;
 import rocks.blackblock.fluxchat.api.FluxChatApi;
+import rocks.blackblock.fluxchat.api.AsyncFluxChatPlaceholder;
 import rocks.blackblock.fluxchat.api.FluxChatPlaceholder;
+import rocks.blackblock.fluxchat.chat.ChatPipeline;
 import rocks.blackblock.fluxchat.commands.*;
 import rocks.blackblock.fluxchat.config.FluxChatConfig;
 import rocks.blackblock.fluxchat.hooks.LuckPermsHook;
 import rocks.blackblock.fluxchat.hooks.NeutronN3FSHook;
 import rocks.blackblock.fluxchat.hooks.PluginMessageHook;
-import rocks.blackblock.fluxchat.hooks.TimerHook;
+import rocks.blackblock.fluxchat.placeholder.AsyncPlaceholderResolver;
+import rocks.blackblock.fluxchat.placeholder.ClockService;
+import rocks.blackblock.fluxchat.placeholder.ComponentCompactor;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderMemo;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderRegistry;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderValueCache;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderVolatility;
 import rocks.blackblock.fluxchat.placeholder.SplittedStringConverter;
 import rocks.blackblock.fluxchat.placeholder.SplittedStringList;
 import rocks.blackblock.fluxchat.placeholder.StandardPlaceholders;
 import rocks.blackblock.fluxchat.placeholder.StringSplitter;
+import rocks.blackblock.fluxchat.placeholder.StringTemplate;
+import rocks.blackblock.fluxchat.placeholder.TemplateCache;
 import rocks.blackblock.fluxchat.tab.FluxChatTabList;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
@@ -77,12 +87,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Plugin(
         id = "@ID@",
@@ -100,16 +105,19 @@ public class FluxChatPlugin implements FluxChatApi {
             .character('&')
             .extractUrls()
             .build();
-    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{([^\\{\\}]+)\\}");
 
     private final ProxyServer proxy;
     private final Logger logger;
     private final Path dataDirectory;
-    private final Set<FluxChatPlaceholder> placeholders = ConcurrentHashMap.newKeySet();
+    private final PlaceholderRegistry placeholders = new PlaceholderRegistry();
     private FluxChatTabList tab_list = null;
-    private final DateFormat date_format;
-    private final DateFormat time_format;
-    private final DateFormat tz_time_format;
+    private ChatPipeline chat_pipeline = null;
+    private final FormatCache format_cache = new FormatCache();
+    private final PlaceholderValueCache placeholder_values = new PlaceholderValueCache();
+    private final ClockService clock = new ClockService();
+    private final AsyncPlaceholderResolver async_placeholders = new AsyncPlaceholderResolver();
+    private final MetaWriteQueue meta_writes = new MetaWriteQueue();
+    private final FluxChatScheduler scheduler;
     private final Map<ServerInfo, Integer> load_map;
     private final Map<ServerInfo, Float> mspt_map;
     private final Map<ServerInfo, Float> tps_map;
@@ -118,6 +126,12 @@ public class FluxChatPlugin implements FluxChatApi {
     public static final MinecraftChannelIdentifier GCHAT_CHANNEL = MinecraftChannelIdentifier.create("blackblock", "gchat");
     public static final MinecraftChannelIdentifier FLUXCHAT_CHANNEL = MinecraftChannelIdentifier.create("blackblock", "fluxchat");
     public static final MinecraftChannelIdentifier SERVER_MOVE_CHANNEL = MinecraftChannelIdentifier.create("blackblock", "servermove");
+
+    // The placeholders that don't depend on a player
+    public static final Set<String> GENERIC_PLACEHOLDERS = Set.of(
+            "playercount", "server_date", "server_time", "local_time_nz", "local_time_cet",
+            "local_time_est", "local_time_ny", "local_time_pst", "local_time_la"
+    );
     public static FluxChatPlugin instance;
 
     private FluxChatConfig config;
@@ -127,10 +141,7 @@ public class FluxChatPlugin implements FluxChatApi {
         this.proxy = proxy;
         this.logger = logger;
         this.dataDirectory = dataDirectory;
-
-        this.date_format = new SimpleDateFormat("yyyy-MM-dd");
-        this.time_format = new SimpleDateFormat("HH:mm");
-        this.tz_time_format = new SimpleDateFormat("HH:mm");
+        this.scheduler = new FluxChatScheduler(this, proxy);
 
         this.mspt_map = new HashMap<>();
         this.tps_map = new HashMap<>();
@@ -152,18 +163,30 @@ public class FluxChatPlugin implements FluxChatApi {
             throw new RuntimeException("Failed to load config", e);
         }
 
+        this.async_placeholders.configure(this.config);
+        this.meta_writes.configure(this.config.getMetaWriteDelay());
+
         // init placeholder hooks
-        placeholders.add(new StandardPlaceholders());
+        placeholders.register(new StandardPlaceholders());
 
         // hook with luckperms
         if (proxy.getPluginManager().getPlugin("luckperms").isPresent()) {
-            placeholders.add(new LuckPermsHook());
+            LuckPermsHook luckperms_hook = new LuckPermsHook();
+            luckperms_hook.registerEvents(this);
+            placeholders.register(luckperms_hook);
         }
 
         if (proxy.getPluginManager().getPlugin("neutron-n3fs").isPresent()) {
             proxy.getEventManager().register(this, new NeutronN3FSHook());
         }
 
+        this.chat_pipeline = new ChatPipeline(this.config.getChatPipelineMaxPending());
+
+        // Measuring the effect of compaction costs 2 extra serializations per component
+        if (logger.isDebugEnabled()) {
+            ComponentCompactor.setMeasureLogger(logger);
+        }
+
         // register chat listener
         proxy.getEventManager().register(this, new FluxChatListener(this));
 
@@ -194,10 +217,10 @@ public class FluxChatPlugin implements FluxChatApi {
         proxy.getChannelRegistrar().register(GCHAT_CHANNEL);
 
         this.tab_list = new FluxChatTabList(this, proxy);
+        this.tab_list.configure(this.config);
         proxy.getEventManager().register(this, this.tab_list);
 
-        Timer timer = new Timer(true);
-        timer.scheduleAtFixedRate(new TimerHook(), 1000, 1000);
+        this.scheduleTasks();
 
         // init api singleton
         FluxChat.setApi(this);
@@ -207,21 +230,60 @@ public class FluxChatPlugin implements FluxChatApi {
     public void onDisable(ProxyShutdownEvent event) {
         // null the api singleton
         FluxChat.setApi(null);
+
+        if (this.chat_pipeline != null) {
+            this.chat_pipeline.shutdown();
+        }
+
+        this.scheduler.shutdown();
+        this.meta_writes.shutdown(10_000);
+    }
+
+    /**
+     * (Re)schedule all the periodic tasks
+     *
+     * @since    3.3.0
+     */
+    private void scheduleTasks() {
+
+        this.scheduler.cancelAll();
+
+        if (this.tab_list != null) {
+            FluxChatTabList tab_list = this.tab_list;
+
+            this.scheduler.repeat("tab-refresh", 1000, tab_list::update);
+
+            // Spread the header/footer & ping work of all players over the second
+            this.scheduler.repeatPerPlayer("tab-players", 1000, 10, tab_list::updatePlayer);
+
+            // Tab list changes are only collected by the events, and sent at a limited rate
+            this.scheduler.repeat("tab-flush", 1000 / this.config.getTablistMaxUpdatesPerSecond(), tab_list::flush);
+        }
+
+        this.scheduler.repeat("leak-check", 1000, FluxChatPlayer.REGISTRY::checkLeaks);
+    }
+
+    public FluxChatScheduler getScheduler() {
+        return this.scheduler;
     }
 
     @Override
     public boolean registerPlaceholder(FluxChatPlaceholder placeholder) {
-        return placeholders.add(placeholder);
+        boolean result = placeholders.register(placeholder);
+        this.placeholder_values.invalidateAll();
+        return result;
     }
 
     @Override
     public boolean unregisterPlaceholder(FluxChatPlaceholder placeholder) {
-        return placeholders.remove(placeholder);
+        boolean result = placeholders.unregister(placeholder);
+        this.placeholder_values.invalidateAll();
+        return result;
     }
 
     @Override
     public ImmutableSet<FluxChatPlaceholder> getPlaceholders() {
-        return ImmutableSet.copyOf(placeholders);
+        return placeholders.getPlaceholders();
     }
 
     @Override
@@ -235,56 +297,53 @@ public class FluxChatPlugin implements FluxChatApi {
             return text;
         }
 
-        Date now = new Date();
-
-        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String definition = matcher.group(1);
-            String name = definition.toLowerCase(Locale.ROOT);
-            String replacement = null;
-
-            switch (name) {
-                case "playercount":
-                    replacement = String.valueOf(proxy.getPlayerCount());
-                    break;
-
-                case "server_date":
-                    replacement = this.date_format.format(now);
-                    break;
-
-                case "server_time":
-                    replacement = this.time_format.format(now);
-                    break;
-
-                case "local_time_nz":
-                    tz_time_format.setTimeZone(TimeZone.getTimeZone("NZ"));
-                    replacement = tz_time_format.format(now);
-                    break;
-
-                case "local_time_cet":
-                    tz_time_format.setTimeZone(TimeZone.getTimeZone("CET"));
-                    replacement = tz_time_format.format(now);
-                    break;
-
-                case "local_time_est":
-                case "local_time_ny":
-                    tz_time_format.setTimeZone(TimeZone.getTimeZone("America/New_York"));
-                    replacement = tz_time_format.format(now);
-                    break;
-
-                case "local_time_pst":
-                case "local_time_la":
-                    tz_time_format.setTimeZone(TimeZone.getTimeZone("America/Los_Angeles"));
-                    replacement = tz_time_format.format(now);
-                    break;
-            }
+        return StringTemplate.of(text).render(this::lookupGenericPlaceholder);
+    }
 
-            if (replacement != null) {
-                text = text.replace("{" + definition + "}", replacement);
-            }
+    /**
+     * Get the value of a placeholder that doesn't depend on a player
+     *
+     * @since    3.3.0
+     */
+    @Nullable
+    public String lookupGenericPlaceholder(String definition) {
+
+        String name = definition.toLowerCase(Locale.ROOT);
+        String replacement = null;
+
+        switch (name) {
+            case "playercount":
+                replacement = String.valueOf(proxy.getPlayerCount());
+                break;
+
+            case "server_date":
+                replacement = this.clock.getServerDate();
+                break;
+
+            case "server_time":
+                replacement = this.clock.getServerTime();
+                break;
+
+            case "local_time_nz":
+                replacement = this.clock.getTime("NZ");
+                break;
+
+            case "local_time_cet":
+                replacement = this.clock.getTime("CET");
+                break;
+
+            case "local_time_est":
+            case "local_time_ny":
+                replacement = this.clock.getTime("America/New_York");
+                break;
+
+            case "local_time_pst":
+            case "local_time_la":
+                replacement = this.clock.getTime("America/Los_Angeles");
+                break;
         }
 
-        return text;
+        return replacement;
     }
 
     @Override
@@ -293,24 +352,72 @@ public class FluxChatPlugin implements FluxChatApi {
             return text;
         }
 
-        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
-        while (matcher.find()) {
-            String definition = matcher.group(1);
-            String replacement = null;
+        return this.replacePlaceholders(player, StringTemplate.of(text));
+    }
+
+    /**
+     * Render the given string template in the context of the given player
+     *
+     * @since    3.3.0
+     */
+    public String replacePlaceholders(Player player, StringTemplate template) {
+
+        if (placeholders.isEmpty()) {
+            return template.render(definition -> null);
+        }
+
+        if (player == null) {
+            return template.render(definition -> this.lookupStringPlaceholder(null, definition).value());
+        }
+
+        return template.render(definition -> this.resolveStringPlaceholder(player, definition));
+    }
+
+    /**
+     * Get the (cached) string value of a single placeholder for the given player,
+     * or null if no placeholder can replace it
+     *
+     * @since    3.3.0
+     */
+    @Nullable
+    public String resolveStringPlaceholder(Player player, String definition) {
+        return this.placeholder_values.get(player.getUniqueId(), "s:" + definition, () -> this.lookupStringPlaceholder(player, definition));
+    }
+
+    /**
+     * Actually ask the placeholders for a string value
+     *
+     * @since    3.3.0
+     */
+    private PlaceholderValueCache.Lookup<String> lookupStringPlaceholder(Player player, String definition) {
 
-            for (FluxChatPlaceholder placeholder : placeholders) {
-                replacement = placeholder.lookupStringReplacement(player, definition);
-                if (replacement != null) {
-                    break;
+        List<FluxChatPlaceholder> route = placeholders.route(definition);
+
+        for (FluxChatPlaceholder placeholder : route) {
+
+            if (placeholder instanceof AsyncFluxChatPlaceholder async_placeholder) {
+                AsyncPlaceholderResolver.Result resolved = this.async_placeholders.resolve(player, async_placeholder, definition);
+
+                if (resolved.value() != null) {
+                    // Don't cache a stale value or a fallback, try again next time
+                    return new PlaceholderValueCache.Lookup<>(resolved.value(), resolved.fresh() ? placeholder.getVolatility(definition) : PlaceholderVolatility.VOLATILE);
                 }
+
+                continue;
             }
 
+            String replacement = placeholder.lookupStringReplacement(player, definition);
+
             if (replacement != null) {
-                text = text.replace("{" + definition + "}", replacement);
+                return new PlaceholderValueCache.Lookup<>(replacement, placeholder.getVolatility(definition));
             }
         }
 
-        return text;
+        if (route.isEmpty()) {
+            return new PlaceholderValueCache.Lookup<>(null, PlaceholderVolatility.CONSTANT);
+        }
+
+        return new PlaceholderValueCache.Lookup<>(null, PlaceholderVolatility.VOLATILE);
     }
 
     @Override
@@ -319,15 +426,105 @@ public class FluxChatPlugin implements FluxChatApi {
     }
 
     public Optional<FluxChatFormat> getFormat(Player player, String type) {
-        return config.getFormats().stream()
-                .filter(f -> {
-                    if (!f.canUse(player)) {
-                        return false;
-                    }
+        return this.format_cache.get(player, config, type);
+    }
+
+    /**
+     * Get the cache of resolved formats per player
+     *
+     * @since    3.3.0
+     */
+    public FormatCache getFormatCache() {
+        return this.format_cache;
+    }
+
+    /**
+     * Get the cache of resolved placeholder values per player
+     *
+     * @since    3.3.0
+     */
+    public PlaceholderValueCache getPlaceholderValues() {
+        return this.placeholder_values;
+    }
+
+    /**
+     * Get the queue of LuckPerms users waiting to be saved
+     *
+     * @since    3.3.0
+     */
+    public MetaWriteQueue getMetaWrites() {
+        return this.meta_writes;
+    }
 
-                    return f.getType().equals(type);
-                })
-                .findFirst();
+    /**
+     * Get the resolver of asynchronous placeholders
+     *
+     * @since    3.3.0
+     */
+    public AsyncPlaceholderResolver getAsyncPlaceholders() {
+        return this.async_placeholders;
+    }
+
+    /**
+     * Start the lookups of all the asynchronous placeholders in the given format at once,
+     * so rendering it only has to wait for the slowest one instead of all of them in a row
+     *
+     * @since    3.3.0
+     */
+    public void prefetchAsyncPlaceholders(Player player, FluxChatFormat format) {
+
+        if (format == null || placeholders.isEmpty()) {
+            return;
+        }
+
+        Set<String> definitions = new LinkedHashSet<>();
+
+        for (StringSplitter.Entry entry : format.getCompiledFormatText().getSlots()) {
+            definitions.add(entry.getContent());
+        }
+
+        for (StringSplitter.Entry entry : format.getCompiledHoverText().getSlots()) {
+            definitions.add(entry.getContent());
+        }
+
+        if (format.getCompiledClickValue() != null) {
+            definitions.addAll(format.getCompiledClickValue().getSlots());
+        }
+
+        List<AsyncPlaceholderResolver.Target> targets = new ArrayList<>();
+
+        for (String definition : definitions) {
+
+            if (definition == null) {
+                continue;
+            }
+
+            for (FluxChatPlaceholder placeholder : placeholders.route(definition)) {
+                if (placeholder instanceof AsyncFluxChatPlaceholder async_placeholder) {
+                    targets.add(new AsyncPlaceholderResolver.Target(async_placeholder, definition));
+                }
+            }
+        }
+
+        this.async_placeholders.prefetch(player, targets);
+    }
+
+    /**
+     * Get the clock that serves all the time placeholders
+     *
+     * @since    3.3.0
+     */
+    public ClockService getClock() {
+        return this.clock;
+    }
+
+    /**
+     * Get the registry of placeholders
+     *
+     * @since    3.3.0
+     */
+    public PlaceholderRegistry getPlaceholderRegistry() {
+        return this.placeholders;
     }
 
     @Subscribe
@@ -338,6 +535,29 @@ public class FluxChatPlugin implements FluxChatApi {
     public boolean reloadConfig() {
         try {
             config = loadConfig();
+            this.async_placeholders.configure(config);
+            this.meta_writes.configure(config.getMetaWriteDelay());
+
+            // The checked permissions might have changed
+            for (FluxChatPlayer flux_player : FluxChatPlayer.REGISTRY.getAll()) {
+                flux_player.refreshMeta();
+            }
+
+            this.format_cache.invalidateAll();
+            this.placeholder_values.invalidateAll();
+
+            // Start the template cache & its hit rate fresh with the new config
+            TemplateCache.clear();
+
+            // The tab formats might have changed too
+            if (this.tab_list != null) {
+                this.tab_list.configure(config);
+                this.tab_list.markAllDirty();
+            }
+
+            // The tab flush rate might have changed
+            this.scheduleTasks();
+
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -391,6 +611,15 @@ public class FluxChatPlugin implements FluxChatApi {
         return this.config;
     }
 
+    /**
+     * Get the pipeline that renders & delivers chat messages
+     *
+     * @since    3.3.0
+     */
+    public ChatPipeline getChatPipeline() {
+        return this.chat_pipeline;
+    }
+
     /**
      * Register a server's MSPT and TPS
      */
@@ -490,6 +719,25 @@ public class FluxChatPlugin implements FluxChatApi {
     @Nullable
     public TextComponent lookupRegisteredPlaceholders(Player player, StringSplitter.Entry placeholder_entry) {
 
+        PlaceholderMemo.Resolved resolved = this.resolveRegisteredPlaceholder(player, placeholder_entry);
+
+        if (resolved == null) {
+            return null;
+        }
+
+        return resolved.value();
+    }
+
+    /**
+     * Lookup in the registered placeholders,
+     * and also return the scope the provider declared for it
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public PlaceholderMemo.Resolved resolveRegisteredPlaceholder(Player player, StringSplitter.Entry placeholder_entry) {
+
         if (placeholder_entry == null) {
             return null;
         }
@@ -500,17 +748,54 @@ public class FluxChatPlugin implements FluxChatApi {
             return null;
         }
 
+        if (player == null) {
+            return this.lookupRegisteredPlaceholder(null, placeholder_entry, key).value();
+        }
+
+        // Decorated & undecorated replacements of the same key are different values
+        String cache_key = (placeholder_entry.allowsDecoration() ? "c:" : "p:") + key;
+
+        return this.placeholder_values.get(player.getUniqueId(), cache_key, () -> this.lookupRegisteredPlaceholder(player, placeholder_entry, key));
+    }
+
+    /**
+     * Actually ask the placeholders for a value
+     *
+     * @since    3.3.0
+     */
+    private PlaceholderValueCache.Lookup<PlaceholderMemo.Resolved> lookupRegisteredPlaceholder(Player player, StringSplitter.Entry placeholder_entry, String key) {
+
+        List<FluxChatPlaceholder> route = this.placeholders.route(key);
         TextComponent result;
 
-        for (FluxChatPlaceholder placeholder : this.placeholders) {
+        for (FluxChatPlaceholder placeholder : route) {
+
+            if (placeholder instanceof AsyncFluxChatPlaceholder async_placeholder && async_placeholder.lookupTextComponentReplacement(player, key) == null) {
+                AsyncPlaceholderResolver.Result resolved = this.async_placeholders.resolve(player, async_placeholder, key);
+                result = FluxChatPlaceholder.convertReplacement(player, placeholder_entry, resolved.value());
+
+                if (result != null) {
+                    // Don't cache a stale value or a fallback, try again next time
+                    PlaceholderVolatility volatility = resolved.fresh() ? placeholder.getVolatility(key) : PlaceholderVolatility.VOLATILE;
+                    return new PlaceholderValueCache.Lookup<>(new PlaceholderMemo.Resolved(result, placeholder.getScope(key)), volatility);
+                }
+
+                continue;
+            }
+
             result = placeholder.getTextComponentReplacement(player, placeholder_entry);
 
             if (result != null) {
-                return result;
+                return new PlaceholderValueCache.Lookup<>(new PlaceholderMemo.Resolved(result, placeholder.getScope(key)), placeholder.getVolatility(key));
             }
         }
 
-        return null;
+        // Nobody handles this key, which only changes when placeholders are (un)registered
+        if (route.isEmpty()) {
+            return new PlaceholderValueCache.Lookup<>(null, PlaceholderVolatility.CONSTANT);
+        }
+
+        return new PlaceholderValueCache.Lookup<>(null, PlaceholderVolatility.VOLATILE);
     }
 
     /**
@@ -520,8 +805,7 @@ public class FluxChatPlugin implements FluxChatApi {
      * @since    3.2.0
      */
     public static TextComponent convertString(String string, FluxChatPlayer.PlaceholderResolver resolver) {
-        SplittedStringList entries = StringSplitter.parse(string);
-        return convertString(entries, resolver);
+        return TemplateCache.get(string).render(resolver);
     }
 
     /**
@@ -532,7 +816,7 @@ public class FluxChatPlugin implements FluxChatApi {
      */
     public static TextComponent convertString(SplittedStringList entries, FluxChatPlayer.PlaceholderResolver resolver) {
         SplittedStringConverter converter = new SplittedStringConverter(entries, resolver);
-        return converter.toTextComponent();
+        return ComponentCompactor.compact(converter.toTextComponent());
     }
 
     /**
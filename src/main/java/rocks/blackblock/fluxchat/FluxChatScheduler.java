@@ -0,0 +1,287 @@
+package rocks.blackblock.fluxchat;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs all of FluxChat's periodic work on Velocity's scheduler.
+ *
+ * Per-player work is split into shards by UUID:
+ * every shard gets its own slot in the interval,
+ * so each player is still handled once per interval without all of them landing at once.
+ *
+ * Every task measures how long its runs take.
+ * A run that takes longer than its slot is counted as an overrun,
+ * and a run that would start while the previous one is still busy is skipped.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class FluxChatScheduler {
+
+    private final Object plugin;
+    private final ProxyServer proxy;
+    private final List<ManagedTask> tasks = new CopyOnWriteArrayList<>();
+    private volatile boolean shut_down = false;
+
+    /**
+     * Create the instance
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public FluxChatScheduler(Object plugin, ProxyServer proxy) {
+        this.plugin = plugin;
+        this.proxy = proxy;
+    }
+
+    /**
+     * Run the given task every interval
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public ManagedTask repeat(String name, long interval_ms, Runnable runnable) {
+
+        interval_ms = Math.max(1, interval_ms);
+
+        ManagedTask task = new ManagedTask(name, interval_ms, interval_ms, runnable);
+        this.start(task);
+
+        return task;
+    }
+
+    /**
+     * Handle every online player once per interval,
+     * spreading the players over the given amount of shards
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public ManagedTask repeatPerPlayer(String name, long interval_ms, int shards, Consumer<Player> action) {
+
+        int shard_count = (int) Math.max(1, Math.min(shards, interval_ms));
+        long slot_ms = Math.max(1, interval_ms / shard_count);
+        AtomicLong tick = new AtomicLong();
+
+        Runnable runnable = () -> {
+            int shard = (int) (tick.getAndIncrement() % shard_count);
+
+            for (Player player : this.proxy.getAllPlayers()) {
+
+                if (Math.floorMod(player.getUniqueId().hashCode(), shard_count) != shard) {
+                    continue;
+                }
+
+                try {
+                    action.accept(player);
+                } catch (Exception e) {
+                    ErrorSentry.capture(e);
+                }
+            }
+        };
+
+        ManagedTask task = new ManagedTask(name, interval_ms, slot_ms, runnable);
+        this.start(task);
+
+        return task;
+    }
+
+    /**
+     * Actually schedule the task
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private void start(ManagedTask task) {
+
+        if (this.shut_down) {
+            throw new IllegalStateException("The scheduler has been shut down");
+        }
+
+        task.scheduled = this.proxy.getScheduler()
+                .buildTask(this.plugin, task::run)
+                .delay(task.slot_ms, TimeUnit.MILLISECONDS)
+                .repeat(task.slot_ms, TimeUnit.MILLISECONDS)
+                .schedule();
+
+        this.tasks.add(task);
+    }
+
+    /**
+     * Cancel all the tasks, but keep accepting new ones
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void cancelAll() {
+
+        List<ManagedTask> cancelled = new ArrayList<>(this.tasks);
+        this.tasks.removeAll(cancelled);
+
+        for (ManagedTask task : cancelled) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Cancel all the tasks and stop accepting new ones
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void shutdown() {
+        this.shut_down = true;
+        this.cancelAll();
+    }
+
+    /**
+     * Get all the scheduled tasks
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public List<ManagedTask> getTasks() {
+        return List.copyOf(this.tasks);
+    }
+
+    /**
+     * A periodic task and its run-time metrics
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static final class ManagedTask {
+
+        private final String name;
+        private final long interval_ms;
+        private final long slot_ms;
+        private final Runnable runnable;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile ScheduledTask scheduled = null;
+
+        private final AtomicLong run_count = new AtomicLong();
+        private final AtomicLong run_time_total = new AtomicLong();
+        private final AtomicLong max_run_time = new AtomicLong();
+        private final AtomicLong overrun_count = new AtomicLong();
+        private final AtomicLong skipped_count = new AtomicLong();
+
+        private ManagedTask(String name, long interval_ms, long slot_ms, Runnable runnable) {
+            this.name = name;
+            this.interval_ms = interval_ms;
+            this.slot_ms = slot_ms;
+            this.runnable = runnable;
+        }
+
+        /**
+         * Do a single run, unless the previous one is still busy
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        private void run() {
+
+            if (!this.running.compareAndSet(false, true)) {
+                this.skipped_count.incrementAndGet();
+                return;
+            }
+
+            long start = System.nanoTime();
+
+            try {
+                this.runnable.run();
+            } catch (Exception e) {
+                ErrorSentry.capture(e);
+            } finally {
+                long duration = System.nanoTime() - start;
+
+                this.run_count.incrementAndGet();
+                this.run_time_total.addAndGet(duration);
+                this.max_run_time.accumulateAndGet(duration, Math::max);
+
+                if (duration > TimeUnit.MILLISECONDS.toNanos(this.slot_ms)) {
+                    this.overrun_count.incrementAndGet();
+                }
+
+                this.running.set(false);
+            }
+        }
+
+        private void cancel() {
+            ScheduledTask scheduled = this.scheduled;
+
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public long getInterval() {
+            return this.interval_ms;
+        }
+
+        public long getRunCount() {
+            return this.run_count.get();
+        }
+
+        /**
+         * The average duration of a run in milliseconds
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        public double getAverageRunTime() {
+
+            long runs = this.run_count.get();
+
+            if (runs == 0) {
+                return 0;
+            }
+
+            return this.run_time_total.get() / (double) runs / 1_000_000d;
+        }
+
+        /**
+         * The duration of the slowest run in milliseconds
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        public double getMaxRunTime() {
+            return this.max_run_time.get() / 1_000_000d;
+        }
+
+        /**
+         * How many runs took longer than their slot
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        public long getOverrunCount() {
+            return this.overrun_count.get();
+        }
+
+        /**
+         * How many runs were skipped because the previous one was still busy
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        public long getSkippedCount() {
+            return this.skipped_count.get();
+        }
+    }
+}
@@ -31,6 +31,14 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import rocks.blackblock.fluxchat.placeholder.ComponentCompactor;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderRegistry;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderValueCache;
+import rocks.blackblock.fluxchat.placeholder.BoundedCache;
+import rocks.blackblock.fluxchat.placeholder.StringTemplate;
+import rocks.blackblock.fluxchat.placeholder.TemplateCache;
+import rocks.blackblock.fluxchat.tab.FluxChatTabList;
+import rocks.blackblock.fluxchat.tab.TabHeaderFooter;
 
 import java.util.Collections;
 import java.util.List;
@@ -77,10 +85,94 @@ public class FluxTalkCommand implements SimpleCommand {
             return;
         }
 
+        if (subCommand.equals("stats") && source.hasPermission("FluxChat.command.stats")) {
+            source.sendMessage(PREFIX.append(Component.text("Statistics").color(NamedTextColor.WHITE).decoration(TextDecoration.BOLD, false)));
+
+            FormatCache format_cache = plugin.getFormatCache();
+            sendStat(source, "Format cache hits", format_cache.getHits());
+            sendStat(source, "Format cache misses", format_cache.getMisses());
+            sendStat(source, "Template cache size", TemplateCache.size());
+            sendStat(source, "Template cache hit rate", String.format("%.1f%%", TemplateCache.getHitRate() * 100));
+            BoundedCache<StringTemplate> string_templates = StringTemplate.getCache();
+            sendStat(source, "String template cache size", string_templates.size());
+            sendStat(source, "String template cache hit rate", String.format("%.1f%%", string_templates.getHitRate() * 100));
+            sendStat(source, "Compacted components", ComponentCompactor.getRemovedCount());
+            sendStat(source, "Compaction bytes saved", ComponentCompactor.getBytesSaved());
+
+            PlaceholderRegistry registry = plugin.getPlaceholderRegistry();
+            sendStat(source, "Placeholder routes cached", registry.getRouteCount());
+            sendStat(source, "Placeholder route hits", registry.getRouteHits());
+            sendStat(source, "Placeholder route misses", registry.getRouteMisses());
+
+            PlaceholderValueCache placeholder_values = plugin.getPlaceholderValues();
+            sendStat(source, "Placeholder values cached", placeholder_values.size());
+            sendStat(source, "Placeholder value hits", placeholder_values.getHits());
+            sendStat(source, "Placeholder value misses", placeholder_values.getMisses());
+
+            sendStat(source, "Clock zones", plugin.getClock().getZoneCount());
+            sendStat(source, "Async lookups completed", plugin.getAsyncPlaceholders().getCompletedCount());
+            sendStat(source, "Async lookups late", plugin.getAsyncPlaceholders().getLateCount());
+            sendStat(source, "Async lookups failed", plugin.getAsyncPlaceholders().getFailedCount());
+
+            PlayerRegistry players = FluxChatPlayer.REGISTRY;
+            players.checkLeaks();
+            sendStat(source, "Online players", plugin.getProxy().getPlayerCount());
+            sendStat(source, "Player entries", players.size());
+            sendStat(source, "Removed players not yet collected", players.getUncollectedCount());
+            sendStat(source, "Suspected player leaks", players.getLeakCount());
+            sendStat(source, "Detached player lookups", players.getDetachedCount());
+            sendStat(source, "Avoided player rebuilds", players.getAvoidedRebuildCount());
+            sendStat(source, "Ambiguous player names", players.getNameCollisionCount());
+            sendStat(source, "Meta snapshots built", MetaSnapshot.getBuildCount());
+
+            FluxChatTabList tab_list = FluxChatTabList.instance;
+
+            if (tab_list != null) {
+                sendStat(source, "Tab entries added", tab_list.getEntriesAdded());
+                sendStat(source, "Tab entries removed", tab_list.getEntriesRemoved());
+                sendStat(source, "Tab updates sent", tab_list.getUpdatesSent());
+                sendStat(source, "Tab updates suppressed", tab_list.getUpdatesSuppressed());
+                sendStat(source, "Tab renders shared", tab_list.getRenderCache().getHits());
+                sendStat(source, "Tab renders", tab_list.getRenderCache().getMisses());
+                sendStat(source, "Tab flushes", tab_list.getFlushCount());
+                sendStat(source, "Tab idle flushes", tab_list.getIdleFlushCount());
+                sendStat(source, "Tab dirty", tab_list.getDirtyCount());
+
+                TabHeaderFooter header_footer = tab_list.getHeaderFooter();
+
+                if (header_footer != null) {
+                    sendStat(source, "Tab headers sent", header_footer.getSentCount());
+                    sendStat(source, "Tab headers unchanged", header_footer.getSuppressedCount());
+                }
+            }
+
+            for (FluxChatScheduler.ManagedTask task : plugin.getScheduler().getTasks()) {
+                sendStat(source, "Task " + task.getName() + " (runs/avg/max/overruns/skipped)", String.format("%d / %.2fms / %.2fms / %d / %d", task.getRunCount(), task.getAverageRunTime(), task.getMaxRunTime(), task.getOverrunCount(), task.getSkippedCount()));
+            }
+
+            MetaWriteQueue meta_writes = plugin.getMetaWrites();
+            sendStat(source, "Meta write queue depth", meta_writes.getDepth());
+            sendStat(source, "Meta changes queued", meta_writes.getMutationCount());
+            sendStat(source, "Meta saves", meta_writes.getSaveCount());
+            sendStat(source, "Meta saves failed", meta_writes.getFailedCount());
+            sendStat(source, "Meta save time (avg/last)", String.format("%.1fms / %.1fms", meta_writes.getAverageSaveTime(), meta_writes.getLastSaveTime()));
+            return;
+        }
+
         TextComponent unknownCommand = PREFIX.append(Component.text("Unknown sub command.").color(NamedTextColor.WHITE).decoration(TextDecoration.BOLD, false));
         source.sendMessage(unknownCommand);
     }
 
+    /**
+     * Send a single statistic line
+     *
+     * @since    3.3.0
+     */
+    private static void sendStat(CommandSource source, String name, Object value) {
+        source.sendMessage(Component.text(" - " + name + ": ").color(NamedTextColor.GRAY)
+                .append(Component.text(String.valueOf(value)).color(NamedTextColor.AQUA)));
+    }
+
     @Override
     public List<String> suggest(Invocation invocation) {
         return Collections.emptyList();
@@ -0,0 +1,88 @@
+package rocks.blackblock.fluxchat;
+
+import com.velocitypowered.api.proxy.Player;
+import rocks.blackblock.fluxchat.api.FluxChatFormat;
+import rocks.blackblock.fluxchat.config.FluxChatConfig;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers which format each player resolved to for each format type,
+ * so the permission checks don't have to be done for every message.
+ *
+ * Entries are invalidated when LuckPerms recalculates a user's data,
+ * when the config is reloaded and when a player disconnects.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class FormatCache {
+
+    private final Map<UUID, Map<String, Optional<FluxChatFormat>>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Get the format of the given type the player can use
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public Optional<FluxChatFormat> get(Player player, FluxChatConfig config, String type) {
+
+        Map<String, Optional<FluxChatFormat>> player_formats = this.cache.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>());
+        Optional<FluxChatFormat> result = player_formats.get(type);
+
+        if (result != null) {
+            this.hits.incrementAndGet();
+            return result;
+        }
+
+        this.misses.incrementAndGet();
+
+        result = Optional.empty();
+
+        for (FluxChatFormat format : config.getFormats(type)) {
+            if (format.canUse(player)) {
+                result = Optional.of(format);
+                break;
+            }
+        }
+
+        player_formats.put(type, result);
+
+        return result;
+    }
+
+    /**
+     * Forget the formats of the given player
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void invalidate(UUID player_uuid) {
+        this.cache.remove(player_uuid);
+    }
+
+    /**
+     * Forget all the resolved formats
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void invalidateAll() {
+        this.cache.clear();
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+}
@@ -0,0 +1,125 @@
+package rocks.blackblock.fluxchat;
+
+import com.google.common.collect.ImmutableMap;
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable copy of the LuckPerms data FluxChat needs of a single player:
+ * its meta values, its prefix, suffix & primary group and the permissions FluxChat checks.
+ *
+ * It is built from a single read of the cached LuckPerms data,
+ * and replaced as a whole when LuckPerms recalculates the user's data.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public final class MetaSnapshot {
+
+    private static final AtomicLong BUILD_COUNT = new AtomicLong();
+
+    private final ImmutableMap<String, String> meta;
+    private final ImmutableMap<String, Boolean> permissions;
+    private final String prefix;
+    private final String suffix;
+    private final String primary_group;
+
+    /**
+     * Create the instance
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private MetaSnapshot(ImmutableMap<String, String> meta, ImmutableMap<String, Boolean> permissions, String prefix, String suffix, String primary_group) {
+        this.meta = meta;
+        this.permissions = permissions;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.primary_group = primary_group;
+    }
+
+    /**
+     * Copy the given LuckPerms data
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static MetaSnapshot create(CachedMetaData meta_data, CachedPermissionData permission_data, Collection<String> checked_permissions) {
+
+        ImmutableMap.Builder<String, String> meta = ImmutableMap.builder();
+
+        // Let LuckPerms pick the value of every key, like a direct lookup would
+        for (String key : meta_data.getMeta().keySet()) {
+            String value = meta_data.getMetaValue(key);
+
+            if (value != null) {
+                meta.put(key, value);
+            }
+        }
+
+        Map<String, Boolean> permissions = new HashMap<>();
+
+        for (String permission : checked_permissions) {
+            permissions.put(permission.toLowerCase(Locale.ROOT), permission_data.checkPermission(permission).asBoolean());
+        }
+
+        BUILD_COUNT.incrementAndGet();
+
+        return new MetaSnapshot(meta.build(), ImmutableMap.copyOf(permissions), meta_data.getPrefix(), meta_data.getSuffix(), meta_data.getPrimaryGroup());
+    }
+
+    /**
+     * Get a meta value, or null if it isn't set
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public String getMetaValue(String key) {
+        return this.meta.get(key);
+    }
+
+    /**
+     * Get the result of a permission check,
+     * or null if this permission isn't part of the snapshot
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public Boolean getPermission(String permission) {
+        return this.permissions.get(permission.toLowerCase(Locale.ROOT));
+    }
+
+    @Nullable
+    public String getPrefix() {
+        return this.prefix;
+    }
+
+    @Nullable
+    public String getSuffix() {
+        return this.suffix;
+    }
+
+    @Nullable
+    public String getPrimaryGroup() {
+        return this.primary_group;
+    }
+
+    /**
+     * How many snapshots have been built in total
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static long getBuildCount() {
+        return BUILD_COUNT.get();
+    }
+}
@@ -0,0 +1,220 @@
+package rocks.blackblock.fluxchat;
+
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves changed LuckPerms users in the background.
+ *
+ * Meta changes are applied to the user right away,
+ * but all the changes of a user within the configured delay
+ * are persisted with a single save.
+ * Pending saves are flushed when the player disconnects and when the proxy shuts down.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class MetaWriteQueue {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FluxChat meta writes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+    private volatile long delay_ms = 2000;
+
+    private final AtomicLong mutation_count = new AtomicLong();
+    private final AtomicLong save_count = new AtomicLong();
+    private final AtomicLong failed_count = new AtomicLong();
+    private final AtomicLong save_time_total = new AtomicLong();
+    private final AtomicLong last_save_time = new AtomicLong();
+
+    /**
+     * Set how long changes are collected before they are saved
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void configure(long delay_ms) {
+        this.delay_ms = Math.max(0, delay_ms);
+    }
+
+    /**
+     * The given user was changed and should be saved
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void queue(UserManager user_manager, User user) {
+
+        this.mutation_count.incrementAndGet();
+
+        if (this.scheduler.isShutdown()) {
+            this.save(new Pending(user_manager, user));
+            return;
+        }
+
+        UUID uuid = user.getUniqueId();
+
+        this.pending.computeIfAbsent(uuid, key -> {
+            try {
+                this.scheduler.schedule(() -> this.flush(key), this.delay_ms, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, which flushes everything that is pending
+            }
+
+            return new Pending(user_manager, user);
+        });
+    }
+
+    /**
+     * Save the changes of the given user now
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public CompletableFuture<Void> flush(UUID player_uuid) {
+
+        Pending entry = this.pending.remove(player_uuid);
+
+        if (entry == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return this.save(entry);
+    }
+
+    /**
+     * Save all pending changes and stop the queue,
+     * waiting at most the given amount of milliseconds for the saves to finish
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void shutdown(long timeout_ms) {
+
+        this.scheduler.shutdownNow();
+
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+
+        for (UUID uuid : List.copyOf(this.pending.keySet())) {
+            saves.add(this.flush(uuid));
+        }
+
+        try {
+            CompletableFuture.allOf(saves.toArray(new CompletableFuture[0])).get(timeout_ms, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            ErrorSentry.capture(e);
+        }
+    }
+
+    /**
+     * Actually save the user
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private CompletableFuture<Void> save(Pending entry) {
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> result;
+
+        try {
+            result = entry.user_manager().saveUser(entry.user());
+        } catch (Throwable e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.whenComplete((ignored, throwable) -> {
+            long duration = System.nanoTime() - start;
+
+            this.save_count.incrementAndGet();
+            this.save_time_total.addAndGet(duration);
+            this.last_save_time.set(duration);
+
+            if (throwable != null) {
+                this.failed_count.incrementAndGet();
+                ErrorSentry.capture(throwable);
+            }
+        });
+    }
+
+    /**
+     * How many users are waiting to be saved
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getDepth() {
+        return this.pending.size();
+    }
+
+    /**
+     * How many changes have been queued in total
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public long getMutationCount() {
+        return this.mutation_count.get();
+    }
+
+    public long getSaveCount() {
+        return this.save_count.get();
+    }
+
+    public long getFailedCount() {
+        return this.failed_count.get();
+    }
+
+    /**
+     * The average duration of a save in milliseconds
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public double getAverageSaveTime() {
+
+        long saves = this.save_count.get();
+
+        if (saves == 0) {
+            return 0;
+        }
+
+        return this.save_time_total.get() / (double) saves / 1_000_000d;
+    }
+
+    /**
+     * The duration of the last save in milliseconds
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public double getLastSaveTime() {
+        return this.last_save_time.get() / 1_000_000d;
+    }
+
+    /**
+     * A user waiting to be saved
+     *
+     * @since    3.3.0
+     */
+    private record Pending(UserManager user_manager, User user) {}
+}
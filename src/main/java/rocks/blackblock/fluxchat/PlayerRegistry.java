@@ -0,0 +1,411 @@
+package rocks.blackblock.fluxchat;
+
+import com.velocitypowered.api.proxy.Player;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the FluxChatPlayer instance of every online player.
+ *
+ * Entries are created when a player logs in and removed once the disconnect has been handled.
+ * Players that aren't connected anymore get a temporary instance that is never stored.
+ *
+ * Players can also be found by their (case-folded) username or nickname.
+ * When one player's nickname is another player's username, the username wins.
+ *
+ * Every removed instance is watched with a weak reference:
+ * if it is still reachable long after its player left, something is leaking it.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class PlayerRegistry {
+
+    // Garbage collection can take a while on a big heap, so don't complain too soon
+    private static final long LEAK_AFTER_MS = 5 * 60 * 1000;
+
+    private final Map<UUID, FluxChatPlayer> entries = new ConcurrentHashMap<>();
+    private final Map<Reference<FluxChatPlayer>, Removed> removed = new ConcurrentHashMap<>();
+    private final ReferenceQueue<FluxChatPlayer> collected = new ReferenceQueue<>();
+
+    // Case-folded names to the players using them
+    private final Map<String, UUID> usernames = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> nicknames = new ConcurrentHashMap<>();
+
+    private final AtomicLong detached_count = new AtomicLong();
+    private final AtomicLong avoided_rebuilds = new AtomicLong();
+    private final AtomicLong leak_count = new AtomicLong();
+
+    /**
+     * Create the entry of a player that just logged in
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public FluxChatPlayer register(Player player) {
+
+        FluxChatPlayer result = new FluxChatPlayer(player);
+        FluxChatPlayer previous = this.entries.put(player.getUniqueId(), result);
+
+        if (previous != null) {
+            this.unindex(previous);
+            this.watch(previous);
+        }
+
+        this.index(result);
+
+        return result;
+    }
+
+    /**
+     * Re-use the entry of a player that switched servers,
+     * or create it if it doesn't exist yet
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public FluxChatPlayer refresh(Player player) {
+
+        FluxChatPlayer result = this.entries.get(player.getUniqueId());
+
+        if (result == null) {
+            return this.get(player);
+        }
+
+        result.switchServer(player);
+        this.avoided_rebuilds.incrementAndGet();
+
+        return result;
+    }
+
+    /**
+     * Get the entry of the given player.
+     * If the player is still connected but has no entry yet
+     * (like when the plugin was loaded while players were online),
+     * one is created.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public FluxChatPlayer get(Player player) {
+
+        FluxChatPlayer result = this.entries.get(player.getUniqueId());
+
+        if (result != null) {
+            return result;
+        }
+
+        result = new FluxChatPlayer(player);
+
+        // Don't let a disconnected player sneak back into the registry
+        if (!player.isActive()) {
+            this.detached_count.incrementAndGet();
+            return result;
+        }
+
+        FluxChatPlayer existing = this.entries.putIfAbsent(player.getUniqueId(), result);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        this.index(result);
+
+        return result;
+    }
+
+    /**
+     * Get the entry of the given player, if there is one
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public FluxChatPlayer get(UUID player_uuid) {
+        return this.entries.get(player_uuid);
+    }
+
+    /**
+     * Remove the entry of the given player
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public FluxChatPlayer remove(UUID player_uuid) {
+
+        FluxChatPlayer result = this.entries.remove(player_uuid);
+
+        if (result != null) {
+            this.unindex(result);
+            this.watch(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Find an online player by their username or nickname, ignoring case.
+     * A matching username always wins from a matching nickname.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public FluxChatPlayer getByName(String name) {
+
+        String folded = foldName(name);
+        UUID username_owner = this.usernames.get(folded);
+
+        if (username_owner != null) {
+            FluxChatPlayer result = this.entries.get(username_owner);
+
+            if (result != null) {
+                return result;
+            }
+        }
+
+        Set<UUID> nickname_owners = this.nicknames.get(folded);
+
+        if (nickname_owners == null) {
+            return null;
+        }
+
+        for (UUID uuid : nickname_owners) {
+            FluxChatPlayer result = this.entries.get(uuid);
+
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The nickname of the given player changed
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void updateNickname(FluxChatPlayer instance, @Nullable String old_nickname, @Nullable String new_nickname) {
+
+        UUID uuid = instance.player.getUniqueId();
+
+        // Temporary instances aren't indexed
+        if (this.entries.get(uuid) != instance) {
+            return;
+        }
+
+        this.unindexNickname(uuid, old_nickname);
+        this.indexNickname(uuid, new_nickname);
+    }
+
+    /**
+     * Add the names of the given player to the index
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private void index(FluxChatPlayer instance) {
+        UUID uuid = instance.player.getUniqueId();
+        this.usernames.put(foldName(instance.player.getUsername()), uuid);
+        this.indexNickname(uuid, instance.getNickname());
+    }
+
+    /**
+     * Remove the names of the given player from the index
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private void unindex(FluxChatPlayer instance) {
+        UUID uuid = instance.player.getUniqueId();
+        this.usernames.remove(foldName(instance.player.getUsername()), uuid);
+        this.unindexNickname(uuid, instance.getNickname());
+    }
+
+    private void indexNickname(UUID uuid, @Nullable String nickname) {
+
+        if (nickname == null || nickname.isBlank()) {
+            return;
+        }
+
+        this.nicknames.computeIfAbsent(foldName(nickname), key -> ConcurrentHashMap.newKeySet()).add(uuid);
+    }
+
+    private void unindexNickname(UUID uuid, @Nullable String nickname) {
+
+        if (nickname == null || nickname.isBlank()) {
+            return;
+        }
+
+        this.nicknames.computeIfPresent(foldName(nickname), (key, owners) -> {
+            owners.remove(uuid);
+            return owners.isEmpty() ? null : owners;
+        });
+    }
+
+    /**
+     * Fold a name for the index
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * How many names currently point to more than 1 player:
+     * a nickname shared by several players, or one player's nickname being another's username
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getNameCollisionCount() {
+
+        int result = 0;
+
+        for (Map.Entry<String, Set<UUID>> entry : this.nicknames.entrySet()) {
+            Set<UUID> owners = entry.getValue();
+            UUID username_owner = this.usernames.get(entry.getKey());
+
+            if (owners.size() > 1 || (username_owner != null && !owners.contains(username_owner))) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get all the entries
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public Collection<FluxChatPlayer> getAll() {
+        return this.entries.values();
+    }
+
+    /**
+     * Watch a removed instance, so we can tell if it is never garbage collected
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private void watch(FluxChatPlayer instance) {
+
+        String username = instance.player == null ? "?" : instance.player.getUsername();
+        this.removed.put(new WeakReference<>(instance, this.collected), new Removed(username, System.currentTimeMillis()));
+    }
+
+    /**
+     * Forget the instances that were garbage collected,
+     * and report the ones that have been lingering for too long
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void checkLeaks() {
+
+        Reference<? extends FluxChatPlayer> reference;
+
+        while ((reference = this.collected.poll()) != null) {
+            this.removed.remove(reference);
+        }
+
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<Reference<FluxChatPlayer>, Removed> entry : this.removed.entrySet()) {
+            Removed info = entry.getValue();
+
+            if (info.reported() || now - info.removed_at() < LEAK_AFTER_MS) {
+                continue;
+            }
+
+            if (this.removed.replace(entry.getKey(), info, info.markReported())) {
+                this.leak_count.incrementAndGet();
+                ErrorSentry.logWarning("[FluxChat] FluxChatPlayer of " + info.username() + " is still reachable " + ((now - info.removed_at()) / 1000) + "s after it was removed");
+            }
+        }
+    }
+
+    /**
+     * How many players have an entry
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * How many removed instances haven't been garbage collected yet
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getUncollectedCount() {
+        return this.removed.size();
+    }
+
+    /**
+     * How many removed instances were still reachable long after they were removed
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public long getLeakCount() {
+        return this.leak_count.get();
+    }
+
+    /**
+     * How many temporary instances were created for disconnected players
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public long getDetachedCount() {
+        return this.detached_count.get();
+    }
+
+    /**
+     * How many times an entry was re-used on a server switch instead of being rebuilt
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public long getAvoidedRebuildCount() {
+        return this.avoided_rebuilds.get();
+    }
+
+    /**
+     * Information about a removed instance
+     *
+     * @since    3.3.0
+     */
+    private record Removed(String username, long removed_at, boolean reported) {
+
+        private Removed(String username, long removed_at) {
+            this(username, removed_at, false);
+        }
+
+        private Removed markReported() {
+            return new Removed(this.username, this.removed_at, true);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package rocks.blackblock.fluxchat.api;
+
+import com.velocitypowered.api.proxy.Player;
+import rocks.blackblock.fluxchat.FluxChatPlugin;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderVolatility;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A placeholder replacement that might take a while to look up.
+ * FluxChat only waits for it until the configured deadline,
+ * after which the last known value (or the configured fallback) is used.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public interface AsyncFluxChatPlaceholder extends FluxChatPlaceholder {
+
+    /**
+     * Looks for a String replacement for the given definition.
+     *
+     * @param   player       The associated player
+     * @param   definition   The placeholder definition, without the outer "{ }" brackets.
+     *
+     * @return   A future of the replacement, which completes with null
+     *           if the definition cannot be satisfied by this {@link FluxChatPlaceholder}
+     */
+    CompletableFuture<String> lookupStringReplacementAsync(Player player, String definition);
+
+    /**
+     * Looks for a String replacement for the given definition,
+     * waiting for it until the deadline.
+     *
+     * @param   player       The associated player
+     * @param   definition   The placeholder definition, without the outer "{ }" brackets.
+     *
+     * @return   A replacement, or null if the definition cannot be satisfied by this {@link FluxChatPlaceholder}
+     */
+    @Override
+    default String lookupStringReplacement(Player player, String definition) {
+        return FluxChatPlugin.instance.getAsyncPlaceholders().resolve(player, this, definition).value();
+    }
+
+    /**
+     * Values of asynchronous placeholders are re-fetched every few seconds by default
+     *
+     * @param   definition   The placeholder definition, without the outer "{ }" brackets.
+     *
+     * @return   The volatility of the placeholder
+     */
+    @Override
+    default PlaceholderVolatility getVolatility(String definition) {
+        return PlaceholderVolatility.FAST;
+    }
+}
@@ -26,9 +26,13 @@
 package rocks.blackblock.fluxchat.api;
 
 import com.velocitypowered.api.proxy.Player;
+import rocks.blackblock.fluxchat.FluxChatPlayer;
+import rocks.blackblock.fluxchat.placeholder.CompiledTemplate;
 import rocks.blackblock.fluxchat.placeholder.SplittedStringList;
 import rocks.blackblock.fluxchat.placeholder.StringSplitter;
+import rocks.blackblock.fluxchat.placeholder.StringTemplate;
 import net.kyori.adventure.text.event.ClickEvent;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.configurate.ConfigurationNode;
 import rocks.blackblock.fluxchat.config.FluxChatConfig;
 
@@ -47,8 +51,11 @@ public class FluxChatFormat {
     private final String type;
     private final String permission;
 
-    private SplittedStringList splitted_format_text = null;
-    private SplittedStringList splitted_hover_text = null;
+    private final SplittedStringList splitted_format_text;
+    private final SplittedStringList splitted_hover_text;
+    private final CompiledTemplate compiled_format_text;
+    private final CompiledTemplate compiled_hover_text;
+    private final StringTemplate compiled_click_value;
 
     public FluxChatFormat(String id, ConfigurationNode c) {
         this.id = id;
@@ -88,6 +95,12 @@ public class FluxChatFormat {
         this.hoverText = currentHoverText;
         this.clickType = currentClickType;
         this.clickValue = currentClickValue;
+
+        this.splitted_format_text = StringSplitter.parse(this.formatText);
+        this.splitted_hover_text = StringSplitter.parse(this.hoverText);
+        this.compiled_format_text = CompiledTemplate.compile(this.splitted_format_text);
+        this.compiled_hover_text = CompiledTemplate.compile(this.splitted_hover_text);
+        this.compiled_click_value = this.clickValue == null ? null : StringTemplate.compile(this.clickValue);
     }
 
     public FluxChatFormat(String id, int priority, boolean checkPermission, String formatText, String hoverText, ClickEvent.Action clickType, String clickValue, String permission) {
@@ -100,27 +113,43 @@ public class FluxChatFormat {
         this.clickValue = clickValue;
         this.permission = permission;
         this.type = "chat";
+
+        this.splitted_format_text = StringSplitter.parse(this.formatText);
+        this.splitted_hover_text = StringSplitter.parse(this.hoverText);
+        this.compiled_format_text = CompiledTemplate.compile(this.splitted_format_text);
+        this.compiled_hover_text = CompiledTemplate.compile(this.splitted_hover_text);
+        this.compiled_click_value = this.clickValue == null ? null : StringTemplate.compile(this.clickValue);
     }
 
     public boolean canUse(Player player) {
 
-        if (!checkPermission) {
+        String required_permission = this.getRequiredPermission();
+
+        if (required_permission == null) {
             return true;
         }
 
-        if (!this.permission.isEmpty()) {
-            if (player.hasPermission(this.permission)) {
-                return true;
-            } else {
-                return false;
-            }
+        return FluxChatPlayer.get(player).hasPermission(required_permission);
+    }
+
+    /**
+     * Get the permission a player needs to use this format,
+     * or null if anyone can use it
+     *
+     * @since    3.3.0
+     */
+    @Nullable
+    public String getRequiredPermission() {
+
+        if (!checkPermission) {
+            return null;
         }
 
-        if (player.hasPermission("FluxChat.format." + id)) {
-            return true;
+        if (!this.permission.isEmpty()) {
+            return this.permission;
         }
 
-        return false;
+        return "FluxChat.format." + id;
     }
 
     public String getId() {
@@ -153,10 +182,6 @@ public class FluxChatFormat {
      * @since    3.2.0
      */
     public SplittedStringList getSplittedFormatText() {
-        if (this.splitted_format_text == null) {
-            this.splitted_format_text = StringSplitter.parse(this.formatText);
-        }
-
         return this.splitted_format_text;
     }
 
@@ -166,13 +191,27 @@ public class FluxChatFormat {
      * @since    3.2.0
      */
     public SplittedStringList getSplittedHoverText() {
-        if (this.splitted_hover_text == null) {
-            this.splitted_hover_text = StringSplitter.parse(this.hoverText);
-        }
-
         return this.splitted_hover_text;
     }
 
+    /**
+     * Return the format text, compiled when the config was loaded
+     *
+     * @since    3.3.0
+     */
+    public CompiledTemplate getCompiledFormatText() {
+        return this.compiled_format_text;
+    }
+
+    /**
+     * Return the hover text, compiled when the config was loaded
+     *
+     * @since    3.3.0
+     */
+    public CompiledTemplate getCompiledHoverText() {
+        return this.compiled_hover_text;
+    }
+
     public ClickEvent.Action getClickType() {
         return this.clickType;
     }
@@ -181,6 +220,15 @@ public class FluxChatFormat {
         return this.clickValue;
     }
 
+    /**
+     * Return the click value, compiled when the config was loaded
+     *
+     * @since    3.3.0
+     */
+    public StringTemplate getCompiledClickValue() {
+        return this.compiled_click_value;
+    }
+
     public String toString() {
         return "ChatFormat(id=" + this.getId() + ", priority=" + this.getPriority() + ", checkPermission=" + this.isCheckPermission() + ", formatText=" + this.getFormatText() + ", hoverText=" + this.getHoverText() + ", clickType=" + this.getClickType() + ", clickValue=" + this.getClickValue() + ")";
     }
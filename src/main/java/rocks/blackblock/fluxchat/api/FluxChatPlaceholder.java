@@ -27,11 +27,16 @@ package rocks.blackblock.fluxchat.api;
 
 import com.velocitypowered.api.proxy.Player;
 import rocks.blackblock.fluxchat.FluxChatPlayer;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderScope;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderVolatility;
 import rocks.blackblock.fluxchat.placeholder.StringSplitter;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Represents a placeholder replacement.
  */
@@ -59,6 +64,55 @@ public interface FluxChatPlaceholder {
         return null;
     }
 
+    /**
+     * Get the exact (lowercase) definitions this placeholder can replace.
+     * Lookups of these keys are routed straight to this placeholder.
+     * If both this and {@link #getKeyPrefixes()} are empty,
+     * the placeholder is asked about every definition.
+     *
+     * @return   The keys this placeholder owns
+     */
+    default Set<String> getKeys() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Get the (case-sensitive) prefixes of the definitions this placeholder can replace,
+     * like "lp_" for "lp_prefix"
+     *
+     * @return   The key prefixes this placeholder owns
+     */
+    default Set<String> getKeyPrefixes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Get the scope of the given definition:
+     * what its value depends on.
+     * Placeholders only get the sender as context,
+     * so by default they are sender-scoped.
+     *
+     * @param   definition   The placeholder definition, without the outer "{ }" brackets.
+     *
+     * @return   The scope of the placeholder
+     */
+    default PlaceholderScope getScope(String definition) {
+        return PlaceholderScope.SENDER;
+    }
+
+    /**
+     * Get how often the value of the given definition changes,
+     * which determines how long it can be cached.
+     * By default nothing is cached.
+     *
+     * @param   definition   The placeholder definition, without the outer "{ }" brackets.
+     *
+     * @return   The volatility of the placeholder
+     */
+    default PlaceholderVolatility getVolatility(String definition) {
+        return PlaceholderVolatility.VOLATILE;
+    }
+
     /**
      * Get the replacement as a component.
      * This method will first attempt to use {@link #lookupTextComponentReplacement(Player, String)}.
@@ -107,7 +161,20 @@ public interface FluxChatPlaceholder {
             return result;
         }
 
-        String replacement = this.lookupStringReplacement(player, key);
+        return convertReplacement(player, entry, this.lookupStringReplacement(player, key));
+    }
+
+    /**
+     * Convert a string replacement into a component,
+     * parsing its decorations if the entry allows it
+     *
+     * @param   player        The associated player
+     * @param   entry         The placeholder definition, as a StringSplitter.Entry (containing extra info)
+     * @param   replacement   The string replacement
+     *
+     * @return   The replacement as a component, or null if there was no replacement
+     */
+    static TextComponent convertReplacement(Player player, @NotNull StringSplitter.Entry entry, String replacement) {
 
         if (replacement == null) {
             return null;
@@ -0,0 +1,68 @@
+package rocks.blackblock.fluxchat.api.events;
+
+import com.google.common.base.Objects;
+import com.velocitypowered.api.proxy.Player;
+import rocks.blackblock.fluxchat.api.FluxChatFormat;
+
+import java.util.Set;
+
+/**
+ * Fired once per chat message, before it is delivered.
+ * Listeners can remove (or add) recipients in bulk,
+ * instead of handling a {@link FluxChatMessageSendEvent} per recipient.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class FluxChatMessageBroadcastEvent {
+
+    private final Player sender;
+    private final FluxChatFormat format;
+    private final String rawMessage;
+    private final Set<Player> recipients;
+
+    public FluxChatMessageBroadcastEvent(Player sender, FluxChatFormat format, String rawMessage, Set<Player> recipients) {
+        this.sender = sender;
+        this.format = format;
+        this.rawMessage = rawMessage;
+        this.recipients = recipients;
+    }
+
+    public Player getSender() {
+        return this.sender;
+    }
+
+    public FluxChatFormat getFormat() {
+        return this.format;
+    }
+
+    public String getRawMessage() {
+        return this.rawMessage;
+    }
+
+    /**
+     * Get the mutable set of players that will receive the message
+     *
+     * @since    3.3.0
+     */
+    public Set<Player> getRecipients() {
+        return this.recipients;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FluxChatMessageBroadcastEvent that = (FluxChatMessageBroadcastEvent) o;
+        return Objects.equal(sender, that.sender) && Objects.equal(format, that.format) && Objects.equal(rawMessage, that.rawMessage) && Objects.equal(recipients, that.recipients);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(sender, format, rawMessage, recipients);
+    }
+
+    public String toString() {
+        return "FluxChatMessageBroadcastEvent(sender=" + this.getSender() + ", format=" + this.getFormat() + ", rawMessage=" + this.getRawMessage() + ", recipients=" + this.getRecipients().size() + ")";
+    }
+}
@@ -0,0 +1,89 @@
+package rocks.blackblock.fluxchat.chat;
+
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.fluxchat.FluxChatPlayer;
+import rocks.blackblock.fluxchat.api.FluxChatFormat;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderMemo;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderParameters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Render a single message for many recipients.
+ * The output only depends on the recipient's server
+ * and on whether the recipient is the sender,
+ * so every variant is rendered once and shared.
+ * All variants use the same format, picked when the message was created.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class ChatFanout {
+
+    private final FluxChatPlayer sender;
+    private final FluxChatFormat format;
+    private final PlaceholderParameters parameters;
+    private final PlaceholderParameters self_parameters;
+    private final Map<ServerInfo, TextComponent> server_output = new HashMap<>();
+    private final Map<ServerInfo, TextComponent> self_output = new HashMap<>();
+    private final PlaceholderMemo memo = new PlaceholderMemo();
+
+    /**
+     * Create the instance
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public ChatFanout(FluxChatPlayer sender, FluxChatFormat format, PlaceholderParameters parameters, PlaceholderParameters self_parameters) {
+        this.sender = sender;
+        this.format = format;
+        this.parameters = parameters;
+        this.self_parameters = self_parameters;
+    }
+
+    /**
+     * Get the message to send to a recipient on the given server
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public TextComponent getMessage(ServerInfo server_info, boolean is_self) {
+
+        Map<ServerInfo, TextComponent> output = is_self ? this.self_output : this.server_output;
+
+        // Null results are remembered too, so they are not rendered again
+        if (output.containsKey(server_info)) {
+            return output.get(server_info);
+        }
+
+        PlaceholderParameters parameters = is_self ? this.self_parameters : this.parameters;
+        TextComponent result = this.sender.formatForServer(server_info, this.format, parameters, this.memo);
+        output.put(server_info, result);
+
+        return result;
+    }
+
+    /**
+     * Get the memo of placeholder values shared by every variant
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public PlaceholderMemo getMemo() {
+        return this.memo;
+    }
+
+    /**
+     * How many distinct variants had to be rendered
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getVariantCount() {
+        return this.server_output.size() + this.self_output.size();
+    }
+}
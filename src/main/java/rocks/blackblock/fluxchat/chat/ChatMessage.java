@@ -0,0 +1,189 @@
+package rocks.blackblock.fluxchat.chat;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import rocks.blackblock.fluxchat.FluxChatPlayer;
+import rocks.blackblock.fluxchat.FluxChatPlugin;
+import rocks.blackblock.fluxchat.api.FluxChatFormat;
+import rocks.blackblock.fluxchat.api.events.FluxChatMessageBroadcastEvent;
+import rocks.blackblock.fluxchat.api.events.FluxChatMessageFormedEvent;
+import rocks.blackblock.fluxchat.api.events.FluxChatMessageSendEvent;
+import rocks.blackblock.fluxchat.config.FluxChatConfig;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderParameters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A single chat message on its way through the {@link ChatPipeline}.
+ * It is filtered, rendered and delivered in separate stages.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class ChatMessage {
+
+    private final FluxChatPlugin plugin;
+    private final FluxChatPlayer sender;
+    private final FluxChatFormat format;
+    private final String raw_message;
+    private final PlaceholderParameters parameters;
+    private final ChatFanout fanout;
+    private Collection<Player> recipients = null;
+    private List<Player> render_recipients = null;
+    private List<TextComponent> render_output = null;
+
+    /**
+     * Create the instance
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public ChatMessage(FluxChatPlugin plugin, FluxChatPlayer sender, FluxChatFormat format, String raw_message, PlaceholderParameters parameters, PlaceholderParameters self_parameters) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.format = format;
+        this.raw_message = raw_message;
+        this.parameters = parameters;
+        this.fanout = new ChatFanout(sender, format, parameters, self_parameters);
+    }
+
+    /**
+     * The filter stage: decide who will receive this message
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void filter() {
+
+        Player player = this.sender.player;
+        ProxyServer proxy = this.plugin.getProxy();
+        FluxChatConfig config = this.plugin.getConfig();
+
+        boolean cancelled = config.isRequireReceivePermission() && !this.sender.hasPermission("FluxChat.receive");
+
+        if (config.usePerRecipientEvents()) {
+            this.recipients = this.filterRecipientsPerEvent(cancelled);
+            return;
+        }
+
+        Set<Player> recipient_set = new LinkedHashSet<>();
+
+        if (!cancelled) {
+            recipient_set.addAll(proxy.getAllPlayers());
+        }
+
+        FluxChatMessageBroadcastEvent broadcastEvent = new FluxChatMessageBroadcastEvent(player, this.format, this.raw_message, recipient_set);
+        proxy.getEventManager().fire(broadcastEvent).join();
+        this.recipients = broadcastEvent.getRecipients();
+    }
+
+    /**
+     * Fire a FluxChatMessageSendEvent for every online player
+     * and return the ones that are still allowed to receive the message.
+     * This is the old (and slower) behaviour, only used when it is enabled in the config.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private List<Player> filterRecipientsPerEvent(boolean cancelled) {
+
+        Player player = this.sender.player;
+        ProxyServer proxy = this.plugin.getProxy();
+        List<Player> result = new ArrayList<>();
+
+        for (Player p : proxy.getAllPlayers()) {
+            FluxChatMessageSendEvent sendEvent = new FluxChatMessageSendEvent(player, p, this.format, this.raw_message, cancelled);
+            proxy.getEventManager().fire(sendEvent).join();
+
+            if (sendEvent.getResult().isAllowed()) {
+                result.add(p);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The render stage: render every variant the recipients need
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void render() {
+
+        Player player = this.sender.player;
+
+        // Start all slow lookups at once, instead of one after the other while rendering
+        this.plugin.prefetchAsyncPlaceholders(player, this.format);
+
+        // Use the format the event listeners were given, even if the sender's permissions changed since
+        TextComponent outgoing_message = this.sender.formatForServer(null, this.format, this.parameters, this.fanout.getMemo());
+
+        if (outgoing_message == null) {
+            return;
+        }
+
+        FluxChatMessageFormedEvent formedEvent = new FluxChatMessageFormedEvent(player, this.format, this.raw_message, outgoing_message);
+        this.plugin.getProxy().getEventManager().fireAndForget(formedEvent);
+
+        if (this.plugin.getConfig().isLogChatGlobal()) {
+            this.plugin.getLogger().info(PlainTextComponentSerializer.plainText().serialize(outgoing_message));
+        }
+
+        this.render_recipients = new ArrayList<>(this.recipients.size());
+        this.render_output = new ArrayList<>(this.recipients.size());
+
+        for (Player p : this.recipients) {
+            ServerConnection server_connection = p.getCurrentServer().orElse(null);
+
+            if (server_connection == null) {
+                continue;
+            }
+
+            ServerInfo server_info = server_connection.getServerInfo();
+
+            if (server_info == null) {
+                continue;
+            }
+
+            // Every (server, self) variant is only rendered once per message
+            TextComponent current_message = this.fanout.getMessage(server_info, player.getUniqueId().equals(p.getUniqueId()));
+
+            if (current_message == null) {
+                continue;
+            }
+
+            this.render_recipients.add(p);
+            this.render_output.add(current_message);
+        }
+
+        this.plugin.getLogger().debug("Chat message of " + player.getUsername() + " needed " + this.fanout.getVariantCount() + " rendered variant(s), " + this.fanout.getMemo().getHits() + " placeholder(s) re-used");
+    }
+
+    /**
+     * The deliver stage: actually send the rendered messages
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void deliver() {
+
+        if (this.render_recipients == null) {
+            return;
+        }
+
+        Player player = this.sender.player;
+
+        for (int i = 0; i < this.render_recipients.size(); i++) {
+            this.render_recipients.get(i).sendMessage(player, this.render_output.get(i));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package rocks.blackblock.fluxchat.chat;
+
+import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders and delivers chat messages off Velocity's event threads.
+ *
+ * Every sender gets its own lane: the stages of a message only start
+ * once the previous message of that sender has been delivered,
+ * so the order of one player's messages is always preserved.
+ *
+ * The stages don't have queues of their own: there is a single admission limit
+ * for the amount of messages in all lanes, in any stage.
+ * A message is either refused up front or it runs through all of its stages,
+ * so it can never get stuck between two full stages.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class ChatPipeline {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<UUID, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+    private final Semaphore capacity;
+    private final int max_pending;
+    private final AtomicLong rejected_count = new AtomicLong();
+    private volatile boolean accepting = true;
+
+    /**
+     * Create the pipeline
+     *
+     * @param    max_pending   How many messages can be waiting at the same time
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public ChatPipeline(int max_pending) {
+        this.max_pending = Math.max(1, max_pending);
+        this.capacity = new Semaphore(this.max_pending);
+    }
+
+    /**
+     * Queue the stages of a message in the lane of its sender.
+     * Returns false when the pipeline is full (or shut down),
+     * in which case nothing has been queued.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public boolean submit(UUID sender_uuid, Runnable... stages) {
+
+        if (!this.accepting || !this.capacity.tryAcquire()) {
+            this.rejected_count.incrementAndGet();
+            return false;
+        }
+
+        CompletableFuture<Void> new_tail = this.lanes.compute(sender_uuid, (uuid, tail) -> {
+
+            CompletableFuture<Void> future = tail == null ? CompletableFuture.completedFuture(null) : tail.exceptionally(throwable -> null);
+
+            for (Runnable stage : stages) {
+                future = future.thenRunAsync(() -> runStage(stage), this.executor);
+            }
+
+            return future.whenComplete((result, throwable) -> this.capacity.release());
+        });
+
+        // Forget about the lane once it has been drained
+        new_tail.whenComplete((result, throwable) -> this.lanes.remove(sender_uuid, new_tail));
+
+        return true;
+    }
+
+    /**
+     * Run a single stage, never letting an error break the lane
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private static void runStage(Runnable stage) {
+        try {
+            stage.run();
+        } catch (Throwable e) {
+            ErrorSentry.capture(e);
+        }
+    }
+
+    /**
+     * How many messages are currently waiting or being processed
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getPendingCount() {
+        return this.max_pending - this.capacity.availablePermits();
+    }
+
+    /**
+     * How many messages were refused because the pipeline was full
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public long getRejectedCount() {
+        return this.rejected_count.get();
+    }
+
+    /**
+     * Stop accepting messages and wait (at most 5 seconds)
+     * for the queued ones to be delivered.
+     * The executor is only stopped afterwards,
+     * because the later stages of a message are only submitted once the previous one is done.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void shutdown() {
+
+        this.accepting = false;
+
+        long deadline_at = System.currentTimeMillis() + 5000;
+
+        try {
+            // A message that was accepted just before could still be adding its lane
+            while (!this.lanes.isEmpty()) {
+                long remaining = deadline_at - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    break;
+                }
+
+                CompletableFuture.allOf(this.lanes.values().toArray(new CompletableFuture[0])).get(remaining, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            ErrorSentry.logWarning("[FluxChat] Chat pipeline shut down with " + this.getPendingCount() + " messages still pending");
+        } catch (ExecutionException e) {
+            // Stages never fail, they capture their own errors
+        }
+
+        this.executor.shutdown();
+    }
+}
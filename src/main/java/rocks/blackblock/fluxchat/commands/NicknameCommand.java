@@ -60,7 +60,7 @@ public class NicknameCommand implements SimpleCommand {
             color_name = args[1];
             String code = null;
 
-            if (invocation.source().hasPermission("FluxChat.all_colors")) {
+            if (fluxChatPlayer.hasPermission("FluxChat.all_colors")) {
                 if (color_name.equals("GOLD")) {
                     code = "&6";
                 }
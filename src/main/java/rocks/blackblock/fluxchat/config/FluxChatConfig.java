@@ -26,6 +26,8 @@
 package rocks.blackblock.fluxchat.config;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import rocks.blackblock.fluxchat.FluxChatPlugin;
 import rocks.blackblock.fluxchat.api.FluxChatFormat;
 import net.kyori.adventure.text.Component;
@@ -41,6 +43,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class FluxChatConfig {
     private static final Style DEFAULT_LINK_STYLE = Style.style(NamedTextColor.WHITE, TextDecoration.UNDERLINED);
@@ -50,11 +53,22 @@ public class FluxChatConfig {
     private final boolean requireReceivePermission;
     private final boolean requirePermissionPassthrough;
     private final boolean logChatGlobal;
+    private final boolean perRecipientEvents;
+    private final int chatPipelineMaxPending;
+    private final long asyncPlaceholderDeadline;
+    private final String asyncPlaceholderFallback;
+    private final Map<String, String> asyncPlaceholderFallbacks;
+    private final long metaWriteDelay;
     private final List<FluxChatFormat> formats;
+    private final Map<String, List<FluxChatFormat>> formatsByType;
+    private final Set<String> checkedPermissions;
     private final Style linkStyle;
     private final String tablist_header;
     private final String tablist_footer;
     private final Boolean has_tablist_config;
+    private final int tablistMaxUpdatesPerSecond;
+    private final long tablistFullRefreshInterval;
+    private final long tablistPingThreshold;
     private final Boolean push_events;
     private final URI push_event_endpoint;
 
@@ -63,6 +77,28 @@ public class FluxChatConfig {
 
         this.logChatGlobal = c.node("log-chat-global").getBoolean(true);
 
+        this.perRecipientEvents = c.node("per-recipient-events").getBoolean(false);
+
+        this.chatPipelineMaxPending = c.node("chat-pipeline", "max-pending").getInt(1000);
+
+        ConfigurationNode async_placeholders = c.node("async-placeholders");
+        this.asyncPlaceholderDeadline = async_placeholders.node("deadline").getLong(50);
+        this.asyncPlaceholderFallback = async_placeholders.node("fallback").getString("");
+
+        ImmutableMap.Builder<String, String> fallbacksBuilder = ImmutableMap.builder();
+
+        for (Map.Entry<Object, ? extends ConfigurationNode> entry : async_placeholders.node("fallbacks").childrenMap().entrySet()) {
+            String value = entry.getValue().getString();
+
+            if (value != null) {
+                fallbacksBuilder.put(String.valueOf(entry.getKey()), value);
+            }
+        }
+
+        this.asyncPlaceholderFallbacks = fallbacksBuilder.build();
+
+        this.metaWriteDelay = c.node("meta-writes", "delay").getLong(2000);
+
         ConfigurationNode push_events = c.node("push-events");
 
         if (!push_events.virtual()) {
@@ -110,6 +146,10 @@ public class FluxChatConfig {
             this.has_tablist_config = false;
         }
 
+        this.tablistMaxUpdatesPerSecond = Math.max(1, tablist.node("max-updates-per-second").getInt(4));
+        this.tablistFullRefreshInterval = Math.max(0, tablist.node("full-refresh-interval").getLong(30)) * 1000;
+        this.tablistPingThreshold = Math.max(0, tablist.node("ping-threshold").getLong(25));
+
         this.requireSendPermission = requirePermission.node("send").getBoolean(false);
 
         String failMsg = getStringNonNull(requirePermission, "send-fail");
@@ -144,6 +184,30 @@ public class FluxChatConfig {
 
         this.formats = ImmutableList.copyOf(formatsList);
 
+        // Index the formats by their type, keeping the priority order
+        Map<String, List<FluxChatFormat>> formatsByType = new HashMap<>();
+        for (FluxChatFormat format : this.formats) {
+            formatsByType.computeIfAbsent(format.getType(), type -> new ArrayList<>()).add(format);
+        }
+
+        ImmutableMap.Builder<String, List<FluxChatFormat>> formatsByTypeBuilder = ImmutableMap.builder();
+        formatsByType.forEach((type, list) -> formatsByTypeBuilder.put(type, ImmutableList.copyOf(list)));
+        this.formatsByType = formatsByTypeBuilder.build();
+
+        // Every permission FluxChat checks on its own, so they can be part of the meta snapshots
+        ImmutableSet.Builder<String> checkedPermissionsBuilder = ImmutableSet.builder();
+        checkedPermissionsBuilder.add("FluxChat.send", "FluxChat.receive", "FluxChat.all_colors");
+
+        for (FluxChatFormat format : this.formats) {
+            String permission = format.getRequiredPermission();
+
+            if (permission != null) {
+                checkedPermissionsBuilder.add(permission);
+            }
+        }
+
+        this.checkedPermissions = checkedPermissionsBuilder.build();
+
         Style currentLinkStyle;
         try {
             //noinspection UnstableApiUsage
@@ -210,6 +274,33 @@ public class FluxChatConfig {
         return this.tablist_footer;
     }
 
+    /**
+     * How many times per second pending tab list changes are sent
+     *
+     * @since    3.3.0
+     */
+    public int getTablistMaxUpdatesPerSecond() {
+        return this.tablistMaxUpdatesPerSecond;
+    }
+
+    /**
+     * How many milliseconds between full checks of every tab list (0 to disable)
+     *
+     * @since    3.3.0
+     */
+    public long getTablistFullRefreshInterval() {
+        return this.tablistFullRefreshInterval;
+    }
+
+    /**
+     * How many milliseconds a player's ping has to change before its entry is updated
+     *
+     * @since    3.3.0
+     */
+    public long getTablistPingThreshold() {
+        return this.tablistPingThreshold;
+    }
+
     public boolean isPassthrough() {
         return this.passthrough;
     }
@@ -234,10 +325,64 @@ public class FluxChatConfig {
         return this.logChatGlobal;
     }
 
+    public boolean usePerRecipientEvents() {
+        return this.perRecipientEvents;
+    }
+
+    public int getChatPipelineMaxPending() {
+        return this.chatPipelineMaxPending;
+    }
+
+    /**
+     * How many milliseconds to wait for asynchronous placeholders
+     *
+     * @since    3.3.0
+     */
+    public long getAsyncPlaceholderDeadline() {
+        return this.asyncPlaceholderDeadline;
+    }
+
+    /**
+     * Get the value to use when an asynchronous placeholder
+     * wasn't resolved in time and there is no previous value
+     *
+     * @since    3.3.0
+     */
+    public String getAsyncPlaceholderFallback(String definition) {
+        return this.asyncPlaceholderFallbacks.getOrDefault(definition, this.asyncPlaceholderFallback);
+    }
+
+    /**
+     * How many milliseconds meta changes are collected before the user is saved
+     *
+     * @since    3.3.0
+     */
+    public long getMetaWriteDelay() {
+        return this.metaWriteDelay;
+    }
+
     public List<FluxChatFormat> getFormats() {
         return this.formats;
     }
 
+    /**
+     * Get the permissions that are part of every player's meta snapshot
+     *
+     * @since    3.3.0
+     */
+    public Set<String> getCheckedPermissions() {
+        return this.checkedPermissions;
+    }
+
+    /**
+     * Get all the formats of the given type, highest priority first
+     *
+     * @since    3.3.0
+     */
+    public List<FluxChatFormat> getFormats(String type) {
+        return this.formatsByType.getOrDefault(type, ImmutableList.of());
+    }
+
     public Style getLinkStyle() {
         return this.linkStyle;
     }
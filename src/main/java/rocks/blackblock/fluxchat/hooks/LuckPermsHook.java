@@ -26,13 +26,25 @@
 package rocks.blackblock.fluxchat.hooks;
 
 import com.velocitypowered.api.proxy.Player;
-import rocks.blackblock.fluxchat.api.FluxChatPlaceholder;
+import rocks.blackblock.fluxchat.FluxChatPlayer;
+import rocks.blackblock.fluxchat.FluxChatPlugin;
+import rocks.blackblock.fluxchat.MetaSnapshot;
+import rocks.blackblock.fluxchat.api.AsyncFluxChatPlaceholder;
+import rocks.blackblock.fluxchat.placeholder.PlaceholderVolatility;
 import me.lucko.luckperms.placeholders.LPPlaceholderProvider;
 import me.lucko.luckperms.placeholders.PlaceholderPlatform;
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.context.ContextUpdateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.model.user.User;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public class LuckPermsHook implements AsyncFluxChatPlaceholder, PlaceholderPlatform {
+    private static final Set<String> KEY_PREFIXES = Set.of("lp_", "luckperms_");
 
-public class LuckPermsHook implements FluxChatPlaceholder, PlaceholderPlatform {
     private final LuckPerms luckPerms;
     private final LPPlaceholderProvider provider;
 
@@ -41,21 +53,133 @@ public class LuckPermsHook implements FluxChatPlaceholder, PlaceholderPlatform {
         this.provider = new LPPlaceholderProvider(this, this.luckPerms);
     }
 
+    /**
+     * Listen to LuckPerms events
+     *
+     * @since    3.3.0
+     */
+    public void registerEvents(FluxChatPlugin plugin) {
+        this.luckPerms.getEventBus().subscribe(plugin, UserDataRecalculateEvent.class, this::onUserDataRecalculate);
+        this.luckPerms.getEventBus().subscribe(plugin, ContextUpdateEvent.class, this::onContextUpdate);
+    }
+
+    /**
+     * A player's context changed, like after a server switch
+     * (LuckPerms signals this once the player is connected to the new server),
+     * so its snapshot might no longer match what LuckPerms would answer
+     *
+     * @since    3.3.0
+     */
+    private void onContextUpdate(ContextUpdateEvent event) {
+
+        Player player = event.getSubject(Player.class).orElse(null);
+
+        if (player == null) {
+            return;
+        }
+
+        FluxChatPlayer flux_player = FluxChatPlayer.get(player.getUniqueId());
+
+        if (flux_player != null) {
+            flux_player.refreshMeta();
+        }
+    }
+
+    /**
+     * A user's permissions or meta data changed
+     *
+     * @since    3.3.0
+     */
+    private void onUserDataRecalculate(UserDataRecalculateEvent event) {
+
+        FluxChatPlugin plugin = FluxChatPlugin.instance;
+
+        if (plugin == null) {
+            return;
+        }
+
+        FluxChatPlayer flux_player = FluxChatPlayer.get(event.getUser().getUniqueId());
+
+        // Replace the snapshot as a whole, readers either see the old or the new one
+        if (flux_player != null) {
+            flux_player.refreshMeta();
+        }
+
+        plugin.getFormatCache().invalidate(event.getUser().getUniqueId());
+        plugin.getPlaceholderValues().invalidate(event.getUser().getUniqueId());
+    }
+
+    @Override
+    public Set<String> getKeyPrefixes() {
+        return KEY_PREFIXES;
+    }
+
+    @Override
+    public PlaceholderVolatility getVolatility(String definition) {
+        // Every change to a user's data causes a recalculation, which invalidates the cache.
+        // Some placeholders (like expiry times) change by themselves though, so don't keep them forever
+        return PlaceholderVolatility.SLOW;
+    }
+
     @Override
-    public String lookupStringReplacement(Player player, String identifier) {
+    public CompletableFuture<String> lookupStringReplacementAsync(Player player, String identifier) {
         if (identifier.startsWith("lp_")) {
             identifier = identifier.substring("lp_".length());
         } else if (identifier.startsWith("luckperms_")) {
             identifier = identifier.substring("luckperms_".length());
         } else {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
         if (player == null || this.provider == null) {
-            return "";
+            return CompletableFuture.completedFuture("");
         }
 
-        return this.provider.onPlaceholderRequest(player, player.getUniqueId(), identifier);
+        String key = identifier;
+
+        // The meta values of online players are in their snapshot already
+        FluxChatPlayer flux_player = FluxChatPlayer.get(player.getUniqueId());
+        MetaSnapshot snapshot = flux_player == null ? null : flux_player.getMetaSnapshot();
+
+        if (snapshot != null && isSnapshotKey(key)) {
+            String value = getSnapshotValue(snapshot, key);
+            return CompletableFuture.completedFuture(value == null ? "" : value);
+        }
+
+        // Everything else (like permission, group & expiry checks) needs LuckPerms itself
+
+        User user = this.luckPerms.getUserManager().getUser(player.getUniqueId());
+
+        // Online players are nearly always loaded already
+        if (user != null) {
+            return CompletableFuture.completedFuture(this.provider.onPlaceholderRequest(player, player.getUniqueId(), key));
+        }
+
+        return this.luckPerms.getUserManager().loadUser(player.getUniqueId())
+                .thenApply(loaded -> this.provider.onPlaceholderRequest(player, player.getUniqueId(), key));
+    }
+
+    /**
+     * Can the given LuckPerms placeholder be answered by a snapshot?
+     *
+     * @since    3.3.0
+     */
+    private static boolean isSnapshotKey(String key) {
+        return key.equals("prefix") || key.equals("suffix") || key.equals("primary_group_name") || (key.startsWith("meta_") && key.length() > "meta_".length());
+    }
+
+    /**
+     * Get the value of a LuckPerms placeholder from the snapshot
+     *
+     * @since    3.3.0
+     */
+    private static String getSnapshotValue(MetaSnapshot snapshot, String key) {
+        return switch (key) {
+            case "prefix" -> snapshot.getPrefix();
+            case "suffix" -> snapshot.getSuffix();
+            case "primary_group_name" -> snapshot.getPrimaryGroup();
+            default -> snapshot.getMetaValue(key.substring("meta_".length()));
+        };
     }
 
     @Override
@@ -5,6 +5,7 @@ import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.player.PlayerChatEvent;
 import me.crypnotic.neutron.NeutronPlugin;
 import me.crypnotic.neutron.api.Neutron;
+import rocks.blackblock.fluxchat.api.events.FluxChatMessageBroadcastEvent;
 import rocks.blackblock.fluxchat.api.events.FluxChatMessageSendEvent;
 
 public class NeutronN3FSHook {
@@ -26,4 +27,12 @@ public class NeutronN3FSHook {
                 });
     }
 
+    @Subscribe(order = PostOrder.LATE)
+    public void onMessageBroadcast(FluxChatMessageBroadcastEvent e) {
+        e.getRecipients().removeIf(recipient -> neutron.getUserManager()
+                .getUser(recipient)
+                .map(user -> user.isIgnoringPlayer(e.getSender()))
+                .orElse(false));
+    }
+
 }
@@ -0,0 +1,251 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import com.velocitypowered.api.proxy.Player;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.fluxchat.api.AsyncFluxChatPlaceholder;
+import rocks.blackblock.fluxchat.config.FluxChatConfig;
+import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves asynchronous placeholders with a deadline.
+ *
+ * Lookups of the same placeholder for the same player share a single future.
+ * When a lookup misses its deadline, the last known value is used
+ * (or the configured fallback when there is none),
+ * and the late result is still remembered for the next time.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class AsyncPlaceholderResolver {
+
+    // A completed lookup is re-used for this long, so a prefetched value isn't fetched again while rendering
+    private static final long FRESH_MS = 1000;
+
+    private final Map<Key, InFlight> in_flight = new ConcurrentHashMap<>();
+    private final Map<Key, KnownValue> last_known = new ConcurrentHashMap<>();
+    private volatile FluxChatConfig config = null;
+
+    private final AtomicLong completed_count = new AtomicLong();
+    private final AtomicLong late_count = new AtomicLong();
+    private final AtomicLong failed_count = new AtomicLong();
+
+    /**
+     * Use the deadline & fallbacks of the given config
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void configure(FluxChatConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Resolve the given placeholder, waiting at most until the deadline
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public Result resolve(@Nullable Player player, AsyncFluxChatPlaceholder placeholder, String definition) {
+
+        Key key = new Key(player == null ? null : player.getUniqueId(), definition);
+        InFlight flight = this.in_flight.get(key);
+
+        if (flight == null) {
+            KnownValue known = this.last_known.get(key);
+
+            if (known != null && System.currentTimeMillis() - known.resolved_at() < FRESH_MS) {
+                return new Result(known.value(), true);
+            }
+
+            flight = this.start(key, player, placeholder);
+        }
+
+        return this.await(key, flight);
+    }
+
+    /**
+     * Start all the given lookups at the same time
+     * and wait until they are all done or the deadline has passed
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void prefetch(@Nullable Player player, Collection<Target> targets) {
+
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        UUID uuid = player == null ? null : player.getUniqueId();
+        List<CompletableFuture<String>> futures = new ArrayList<>(targets.size());
+        long deadline_at = 0;
+        long now = System.currentTimeMillis();
+
+        for (Target target : targets) {
+            Key key = new Key(uuid, target.definition());
+            InFlight flight = this.in_flight.get(key);
+
+            if (flight == null) {
+                KnownValue known = this.last_known.get(key);
+
+                if (known != null && now - known.resolved_at() < FRESH_MS) {
+                    continue;
+                }
+
+                flight = this.start(key, player, target.placeholder());
+            }
+
+            futures.add(flight.future());
+            deadline_at = Math.max(deadline_at, flight.deadline_at());
+        }
+
+        if (futures.isEmpty()) {
+            return;
+        }
+
+        try {
+            long remaining = deadline_at - System.currentTimeMillis();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // The individual lookups will deal with this
+        }
+    }
+
+    /**
+     * Start a lookup, unless one is already in flight
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private InFlight start(Key key, @Nullable Player player, AsyncFluxChatPlaceholder placeholder) {
+
+        long deadline_at = System.currentTimeMillis() + this.getDeadline();
+        InFlight created = new InFlight(new CompletableFuture<>(), deadline_at);
+        InFlight existing = this.in_flight.putIfAbsent(key, created);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<String> lookup;
+
+        try {
+            lookup = placeholder.lookupStringReplacementAsync(player, key.definition());
+        } catch (Throwable e) {
+            lookup = CompletableFuture.failedFuture(e);
+        }
+
+        if (lookup == null) {
+            lookup = CompletableFuture.completedFuture(null);
+        }
+
+        lookup.whenComplete((value, throwable) -> {
+
+            if (throwable == null) {
+                this.completed_count.incrementAndGet();
+                this.last_known.put(key, new KnownValue(value, System.currentTimeMillis()));
+                created.future().complete(value);
+            } else {
+                this.failed_count.incrementAndGet();
+                ErrorSentry.capture(throwable);
+                created.future().completeExceptionally(throwable);
+            }
+
+            this.in_flight.remove(key, created);
+        });
+
+        return created;
+    }
+
+    /**
+     * Wait for the lookup until its deadline
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private Result await(Key key, InFlight flight) {
+
+        try {
+            long remaining = flight.deadline_at() - System.currentTimeMillis();
+            return new Result(flight.future().get(Math.max(remaining, 0), TimeUnit.MILLISECONDS), true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            this.late_count.incrementAndGet();
+        } catch (ExecutionException e) {
+            // Already captured when it failed
+        }
+
+        KnownValue known = this.last_known.get(key);
+
+        if (known != null) {
+            return new Result(known.value(), false);
+        }
+
+        FluxChatConfig config = this.config;
+        return new Result(config == null ? "" : config.getAsyncPlaceholderFallback(key.definition()), false);
+    }
+
+    /**
+     * Forget the values of the given player
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void forget(UUID player_uuid) {
+        this.last_known.keySet().removeIf(key -> player_uuid.equals(key.player_uuid()));
+    }
+
+    private long getDeadline() {
+        FluxChatConfig config = this.config;
+        return config == null ? 50 : config.getAsyncPlaceholderDeadline();
+    }
+
+    public long getCompletedCount() {
+        return this.completed_count.get();
+    }
+
+    public long getLateCount() {
+        return this.late_count.get();
+    }
+
+    public long getFailedCount() {
+        return this.failed_count.get();
+    }
+
+    /**
+     * The resolved value,
+     * and whether it is the actual value or a previous one/the fallback
+     *
+     * @since    3.3.0
+     */
+    public record Result(@Nullable String value, boolean fresh) {}
+
+    /**
+     * A placeholder to prefetch
+     *
+     * @since    3.3.0
+     */
+    public record Target(AsyncFluxChatPlaceholder placeholder, String definition) {}
+
+    private record Key(@Nullable UUID player_uuid, String definition) {}
+
+    private record InFlight(CompletableFuture<String> future, long deadline_at) {}
+
+    private record KnownValue(@Nullable String value, long resolved_at) {}
+}
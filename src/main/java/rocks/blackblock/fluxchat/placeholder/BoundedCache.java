@@ -0,0 +1,126 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A small size-bounded LRU cache of values created from strings,
+ * like compiled templates.
+ * The values should be immutable, since they are shared between threads.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public final class BoundedCache<V> {
+
+    private final Map<String, V> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create the cache
+     *
+     * @param    max_entries   How many values to keep at most
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public BoundedCache(int max_entries) {
+        this.entries = new LinkedHashMap<>(Math.min(max_entries, 256), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return this.size() > max_entries;
+            }
+        };
+    }
+
+    /**
+     * Get the value of the given key, creating it if it isn't cached.
+     * The value is created outside of the lock,
+     * so 2 threads might create the same value at the same time.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public V get(String key, Function<String, V> creator) {
+
+        V result;
+
+        synchronized (this.entries) {
+            result = this.entries.get(key);
+        }
+
+        if (result != null) {
+            this.hits.incrementAndGet();
+            return result;
+        }
+
+        this.misses.incrementAndGet();
+        result = creator.apply(key);
+
+        synchronized (this.entries) {
+            this.entries.put(key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Count a lookup that bypassed the cache
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void countMiss() {
+        this.misses.incrementAndGet();
+    }
+
+    /**
+     * Remove all values and start counting from zero again
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+
+        this.hits.set(0);
+        this.misses.set(0);
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Get the hit rate, between 0 and 1
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public double getHitRate() {
+
+        long hits = this.hits.get();
+        long total = hits + this.misses.get();
+
+        if (total == 0) {
+            return 0;
+        }
+
+        return (double) hits / total;
+    }
+}
@@ -0,0 +1,217 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the formatted times of all the time placeholders.
+ *
+ * Every distinct zone in use is formatted once per minute,
+ * and the results are published as an immutable snapshot,
+ * so reading a time never takes a lock.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class ClockService {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final Set<String> KNOWN_ZONE_NAMES = Set.copyOf(Arrays.asList(TimeZone.getAvailableIDs()));
+
+    private final ZoneId server_zone = ZoneId.systemDefault();
+    private final Map<String, ZoneId> zones_by_name = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(Long.MIN_VALUE, "", Map.of());
+
+    /**
+     * Get the current date of the server, like "2024-01-31"
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public String getServerDate() {
+        return this.getSnapshot().server_date();
+    }
+
+    /**
+     * Get the current time of the server, like "14:05"
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public String getServerTime() {
+        return this.getTime(this.server_zone);
+    }
+
+    /**
+     * Get the current time in the given zone.
+     * Unknown zone names fall back to GMT, like {@link TimeZone#getTimeZone(String)} does.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public String getTime(@Nullable String zone_name) {
+
+        if (zone_name == null) {
+            return this.getServerTime();
+        }
+
+        return this.getTime(this.getZone(zone_name));
+    }
+
+    /**
+     * Get the current time in the given zone
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public String getTime(ZoneId zone) {
+
+        String result = this.getSnapshot().times().get(zone);
+
+        if (result != null) {
+            return result;
+        }
+
+        // First time this zone is used: add it to the table
+        return this.addZone(zone).times().get(zone);
+    }
+
+    /**
+     * Resolve the given zone name
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public ZoneId getZone(String zone_name) {
+
+        ZoneId result = this.zones_by_name.get(zone_name);
+
+        if (result != null) {
+            return result;
+        }
+
+        result = TimeZone.getTimeZone(zone_name).toZoneId();
+
+        // Only remember the known zone ids, so any string a player sets can't grow this map
+        if (KNOWN_ZONE_NAMES.contains(zone_name)) {
+            this.zones_by_name.put(zone_name, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * How many zones are being kept up-to-date
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getZoneCount() {
+        return this.snapshot.times().size();
+    }
+
+    /**
+     * Get the snapshot of the current minute
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private Snapshot getSnapshot() {
+
+        Snapshot current = this.snapshot;
+        long minute = currentMinute();
+
+        if (current.minute() == minute) {
+            return current;
+        }
+
+        return this.refresh(minute);
+    }
+
+    /**
+     * Format all known zones again
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private synchronized Snapshot refresh(long minute) {
+
+        Snapshot current = this.snapshot;
+
+        if (current.minute() == minute) {
+            return current;
+        }
+
+        Snapshot result = createSnapshot(minute, current.times().keySet(), null);
+        this.snapshot = result;
+
+        return result;
+    }
+
+    /**
+     * Add a new zone to the current snapshot
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private synchronized Snapshot addZone(ZoneId zone) {
+
+        Snapshot current = this.snapshot;
+
+        if (current.minute() == currentMinute() && current.times().containsKey(zone)) {
+            return current;
+        }
+
+        Snapshot result = createSnapshot(currentMinute(), current.times().keySet(), zone);
+        this.snapshot = result;
+
+        return result;
+    }
+
+    /**
+     * Create a new snapshot for the given minute
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private Snapshot createSnapshot(long minute, Iterable<ZoneId> zones, @Nullable ZoneId extra_zone) {
+
+        Instant instant = Instant.ofEpochSecond(minute * 60);
+        Map<ZoneId, String> times = new HashMap<>();
+
+        for (ZoneId zone : zones) {
+            times.put(zone, TIME_FORMAT.format(ZonedDateTime.ofInstant(instant, zone)));
+        }
+
+        if (extra_zone != null) {
+            times.put(extra_zone, TIME_FORMAT.format(ZonedDateTime.ofInstant(instant, extra_zone)));
+        }
+
+        String server_date = DATE_FORMAT.format(ZonedDateTime.ofInstant(instant, this.server_zone));
+
+        return new Snapshot(minute, server_date, Map.copyOf(times));
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60_000L;
+    }
+
+    /**
+     * The formatted times of a single minute
+     *
+     * @since    3.3.0
+     */
+    private record Snapshot(long minute, String server_date, Map<ZoneId, String> times) {}
+}
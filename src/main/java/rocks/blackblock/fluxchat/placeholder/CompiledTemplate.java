@@ -0,0 +1,258 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import rocks.blackblock.fluxchat.FluxChatPlayer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable, pre-compiled version of a SplittedStringList.
+ * Every part of the template that does not contain a placeholder
+ * is turned into a shared component once,
+ * so rendering only has to evaluate the placeholder slots.
+ *
+ * The resulting component tree looks identical
+ * to the one the {@link SplittedStringConverter} creates,
+ * but it is compacted by the {@link ComponentCompactor}.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public final class CompiledTemplate {
+
+    public static final CompiledTemplate EMPTY = new CompiledTemplate(new Node[0], Collections.emptyList());
+
+    private final Node[] children;
+    private final List<StringSplitter.Entry> slots;
+
+    /**
+     * Create the instance
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private CompiledTemplate(Node[] children, List<StringSplitter.Entry> slots) {
+        this.children = children;
+        this.slots = slots;
+    }
+
+    /**
+     * Compile the given list
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static CompiledTemplate compile(SplittedStringList list) {
+
+        if (list == null || list.isEmpty()) {
+            return EMPTY;
+        }
+
+        Compiler compiler = new Compiler();
+
+        for (StringSplitter.Entry entry : list) {
+            compiler.handleEntry(entry);
+        }
+
+        return compiler.finish();
+    }
+
+    /**
+     * Compile the given string
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static CompiledTemplate compile(String source) {
+        return compile(StringSplitter.parse(source));
+    }
+
+    /**
+     * Get all the placeholder entries used in this template
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public List<StringSplitter.Entry> getSlots() {
+        return this.slots;
+    }
+
+    /**
+     * Does this template contain any placeholders?
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public boolean isStatic() {
+        return this.slots.isEmpty();
+    }
+
+    /**
+     * Render the template with the given resolver
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public TextComponent render(FluxChatPlayer.PlaceholderResolver resolver) {
+        TextComponent.Builder root = Component.text();
+        appendChildren(root, this.children, resolver);
+        return ComponentCompactor.compact(root.build());
+    }
+
+    /**
+     * Append the given nodes to the builder
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private static void appendChildren(TextComponent.Builder builder, Node[] nodes, FluxChatPlayer.PlaceholderResolver resolver) {
+        for (Node node : nodes) {
+            if (node instanceof StaticNode static_node) {
+                builder.append(static_node.component());
+            } else if (node instanceof SlotNode slot_node) {
+                TextComponent replacement = resolver.replace(slot_node.entry());
+
+                if (replacement != null) {
+                    builder.append(replacement);
+                }
+            } else if (node instanceof GroupNode group_node) {
+                TextComponent.Builder group_builder = Component.text().style(group_node.style());
+                appendChildren(group_builder, group_node.children(), resolver);
+                builder.append(group_builder.build());
+            }
+        }
+    }
+
+    /**
+     * A node in the template tree
+     *
+     * @since    3.3.0
+     */
+    private sealed interface Node permits StaticNode, SlotNode, GroupNode {}
+
+    /**
+     * A pre-built component without any placeholders
+     *
+     * @since    3.3.0
+     */
+    private record StaticNode(Component component) implements Node {}
+
+    /**
+     * A placeholder that has to be resolved on every render
+     *
+     * @since    3.3.0
+     */
+    private record SlotNode(StringSplitter.Entry entry) implements Node {}
+
+    /**
+     * A styled group that contains at least one placeholder
+     *
+     * @since    3.3.0
+     */
+    private record GroupNode(Style style, Node[] children) implements Node {}
+
+    /**
+     * Turns the entries into a node tree,
+     * the same way the SplittedStringConverter nests its builders.
+     *
+     * @since    3.3.0
+     */
+    private static class Compiler {
+
+        private final OpenGroup root = new OpenGroup(Style.empty());
+        private final List<OpenGroup> chain = new ArrayList<>();
+        private final List<StringSplitter.Entry> slots = new ArrayList<>();
+
+        private OpenGroup current() {
+            return this.chain.isEmpty() ? this.root : this.chain.get(this.chain.size() - 1);
+        }
+
+        private void handleEntry(StringSplitter.Entry entry) {
+
+            if (entry.isReset()) {
+                this.closeAll();
+                return;
+            }
+
+            if (entry.isOpeningTag()) {
+                this.chain.add(new OpenGroup(entry.getStyle()));
+            } else if (entry.isClosingTag()) {
+                this.closeCurrent();
+            } else if (entry.isPlaceholder()) {
+                this.current().children.add(new SlotNode(entry));
+                this.slots.add(entry);
+            } else {
+                this.current().children.add(new StaticNode(Component.text(entry.getContent())));
+            }
+        }
+
+        private void closeCurrent() {
+
+            if (this.chain.isEmpty()) {
+                return;
+            }
+
+            OpenGroup ending = this.chain.remove(this.chain.size() - 1);
+            this.current().children.add(ending.toNode());
+        }
+
+        private void closeAll() {
+            while (!this.chain.isEmpty()) {
+                this.closeCurrent();
+            }
+        }
+
+        private CompiledTemplate finish() {
+            this.closeAll();
+            Node[] children = this.root.children.toArray(new Node[0]);
+            return new CompiledTemplate(children, Collections.unmodifiableList(new ArrayList<>(this.slots)));
+        }
+    }
+
+    /**
+     * A group that is still being compiled
+     *
+     * @since    3.3.0
+     */
+    private static class OpenGroup {
+
+        private final Style style;
+        private final List<Node> children = new ArrayList<>();
+
+        private OpenGroup(Style style) {
+            this.style = style;
+        }
+
+        /**
+         * Turn this group into a node,
+         * pre-building it when it has no placeholders
+         */
+        private Node toNode() {
+
+            boolean is_static = true;
+
+            for (Node child : this.children) {
+                if (!(child instanceof StaticNode)) {
+                    is_static = false;
+                    break;
+                }
+            }
+
+            if (!is_static) {
+                return new GroupNode(this.style, this.children.toArray(new Node[0]));
+            }
+
+            TextComponent.Builder builder = Component.text().style(this.style);
+
+            for (Node child : this.children) {
+                builder.append(((StaticNode) child).component());
+            }
+
+            return new StaticNode(builder.build());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.serializer.gson.GsonComponentSerializer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Make a rendered component tree as small as possible,
+ * without changing what it looks like:
+ *
+ * - Text components without content and children are removed
+ * - Children of components without content and style are moved up into the parent
+ * - Adjacent childless text siblings with the same style are merged
+ * - A component without content and a single child is merged with that child
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public final class ComponentCompactor {
+
+    private static final AtomicLong REMOVED_COUNT = new AtomicLong();
+    private static final AtomicLong BYTES_SAVED = new AtomicLong();
+    private static volatile Logger measure_logger = null;
+
+    private ComponentCompactor() {}
+
+    /**
+     * Measure (and log at debug level) how many bytes every compaction saves.
+     * This serializes each component twice, so it is only meant for debugging.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static void setMeasureLogger(Logger logger) {
+        measure_logger = logger;
+    }
+
+    /**
+     * Compact the given component
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static TextComponent compact(TextComponent component) {
+
+        if (component == null || component.children().isEmpty()) {
+            return component;
+        }
+
+        TextComponent result = compactNode(component);
+        Logger logger = measure_logger;
+
+        if (logger != null) {
+            GsonComponentSerializer serializer = GsonComponentSerializer.gson();
+            int before = serializer.serialize(component).length();
+            int after = serializer.serialize(result).length();
+            BYTES_SAVED.addAndGet(before - after);
+            logger.debug("Compacted component from " + before + " to " + after + " bytes");
+        }
+
+        return result;
+    }
+
+    /**
+     * Compact a single text component and its children
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private static TextComponent compactNode(TextComponent component) {
+
+        if (component.children().isEmpty()) {
+            return component;
+        }
+
+        List<Component> children = new ArrayList<>(component.children().size());
+        compactChildren(component.children(), children);
+
+        // An empty wrapper around a single text child can become that child
+        if (component.content().isEmpty() && children.size() == 1 && children.get(0) instanceof TextComponent child) {
+            REMOVED_COUNT.incrementAndGet();
+            return child.style(component.style().merge(child.style()));
+        }
+
+        return component.children(children);
+    }
+
+    /**
+     * Compact the given children and add them to the result list
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private static void compactChildren(List<Component> children, List<Component> result) {
+
+        for (Component child : children) {
+
+            if (!(child instanceof TextComponent text_child)) {
+                result.add(child);
+                continue;
+            }
+
+            text_child = compactNode(text_child);
+
+            if (text_child.content().isEmpty()) {
+
+                // Nothing to show at all
+                if (text_child.children().isEmpty()) {
+                    REMOVED_COUNT.incrementAndGet();
+                    continue;
+                }
+
+                // It doesn't add anything to its children, so they can take its place
+                if (text_child.style().isEmpty()) {
+                    REMOVED_COUNT.incrementAndGet();
+
+                    for (Component grandchild : text_child.children()) {
+                        appendMerged(grandchild, result);
+                    }
+
+                    continue;
+                }
+            }
+
+            appendMerged(text_child, result);
+        }
+    }
+
+    /**
+     * Add the component to the list,
+     * merging it with the previous one if they have the same style
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private static void appendMerged(Component component, List<Component> result) {
+
+        if (!result.isEmpty() && component instanceof TextComponent text && text.children().isEmpty()) {
+            int last_index = result.size() - 1;
+
+            if (result.get(last_index) instanceof TextComponent previous && previous.children().isEmpty()) {
+                Style style = text.style();
+
+                if (style.equals(previous.style())) {
+                    REMOVED_COUNT.incrementAndGet();
+                    result.set(last_index, Component.text(previous.content() + text.content(), style));
+                    return;
+                }
+            }
+        }
+
+        result.add(component);
+    }
+
+    /**
+     * How many components have been removed in total
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static long getRemovedCount() {
+        return REMOVED_COUNT.get();
+    }
+
+    /**
+     * How many serialized bytes have been saved,
+     * only counted while measuring is enabled
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static long getBytesSaved() {
+        return BYTES_SAVED.get();
+    }
+}
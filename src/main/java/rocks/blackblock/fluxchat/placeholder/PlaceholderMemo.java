@@ -0,0 +1,85 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import net.kyori.adventure.text.TextComponent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the resolved values of placeholders
+ * for the lifetime of a single message.
+ * Only placeholders whose scope is shared by every recipient are stored.
+ *
+ * Instances are not thread-safe: a message is rendered by one thread at a time.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class PlaceholderMemo {
+
+    private final Map<String, TextComponent> values = new HashMap<>();
+    private int hits = 0;
+
+    /**
+     * Get the memoised value of the given placeholder entry,
+     * or resolve it with the given supplier
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public TextComponent get(StringSplitter.Entry entry, Supplier<Resolved> resolver) {
+
+        String key = getMemoKey(entry);
+
+        // Null values are remembered too
+        if (this.values.containsKey(key)) {
+            this.hits++;
+            return this.values.get(key);
+        }
+
+        Resolved resolved = resolver.get();
+
+        if (resolved == null) {
+            this.values.put(key, null);
+            return null;
+        }
+
+        if (resolved.scope().isSharedPerMessage()) {
+            this.values.put(key, resolved.value());
+        }
+
+        return resolved.value();
+    }
+
+    /**
+     * How many lookups were served from this memo
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Placeholders that don't allow decoration resolve differently
+     *
+     * @since    3.3.0
+     */
+    private static String getMemoKey(StringSplitter.Entry entry) {
+
+        if (entry.allowsDecoration()) {
+            return entry.getContent();
+        }
+
+        return "!" + entry.getContent();
+    }
+
+    /**
+     * A resolved value together with the scope of the placeholder
+     *
+     * @since    3.3.0
+     */
+    public record Resolved(TextComponent value, PlaceholderScope scope) {}
+}
@@ -0,0 +1,249 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import com.google.common.collect.ImmutableSet;
+import rocks.blackblock.fluxchat.api.FluxChatPlaceholder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the registered placeholders
+ * and routes every definition straight to the placeholders that can handle it.
+ *
+ * Placeholders declare the exact keys and the key prefixes they own.
+ * Placeholders that declare neither are asked about every definition.
+ * The route of every definition is cached, including definitions nobody handles.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class PlaceholderRegistry {
+
+    // Definitions in chat messages are user input, so don't let the route cache grow forever
+    private static final int MAX_ROUTES = 4096;
+
+    private final Set<FluxChatPlaceholder> placeholders = new LinkedHashSet<>();
+    private final Map<String, List<FluxChatPlaceholder>> routes = new ConcurrentHashMap<>();
+    private volatile Index index = new Index(Collections.emptyList());
+
+    private final AtomicLong route_hits = new AtomicLong();
+    private final AtomicLong route_misses = new AtomicLong();
+
+    /**
+     * Register a placeholder
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public synchronized boolean register(FluxChatPlaceholder placeholder) {
+
+        if (!this.placeholders.add(placeholder)) {
+            return false;
+        }
+
+        this.rebuild();
+        return true;
+    }
+
+    /**
+     * Unregister a placeholder
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public synchronized boolean unregister(FluxChatPlaceholder placeholder) {
+
+        if (!this.placeholders.remove(placeholder)) {
+            return false;
+        }
+
+        this.rebuild();
+        return true;
+    }
+
+    /**
+     * Get all the registered placeholders
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public synchronized ImmutableSet<FluxChatPlaceholder> getPlaceholders() {
+        return ImmutableSet.copyOf(this.placeholders);
+    }
+
+    /**
+     * Are there no placeholders at all?
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public boolean isEmpty() {
+        return this.index.isEmpty();
+    }
+
+    /**
+     * Get the placeholders that should be asked about the given definition,
+     * in the order they should be asked.
+     * An empty list means nobody can handle it.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public List<FluxChatPlaceholder> route(String definition) {
+
+        List<FluxChatPlaceholder> result = this.routes.get(definition);
+
+        if (result != null) {
+            this.route_hits.incrementAndGet();
+            return result;
+        }
+
+        this.route_misses.incrementAndGet();
+        Index index = this.index;
+        result = index.route(definition);
+
+        if (this.routes.size() >= MAX_ROUTES) {
+            this.routes.clear();
+        }
+
+        this.routes.put(definition, result);
+
+        // Don't keep a route of an index that was replaced in the meantime
+        if (this.index != index) {
+            this.routes.remove(definition, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Rebuild the index after the placeholders changed
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private void rebuild() {
+        this.index = new Index(new ArrayList<>(this.placeholders));
+        this.routes.clear();
+    }
+
+    public long getRouteHits() {
+        return this.route_hits.get();
+    }
+
+    public long getRouteMisses() {
+        return this.route_misses.get();
+    }
+
+    public int getRouteCount() {
+        return this.routes.size();
+    }
+
+    /**
+     * An immutable dispatch table:
+     * exact keys, a prefix trie and the placeholders without any declarations
+     *
+     * @since    3.3.0
+     */
+    private static class Index {
+
+        private final Map<String, List<FluxChatPlaceholder>> exact = new HashMap<>();
+        private final TrieNode prefixes = new TrieNode();
+        private final List<FluxChatPlaceholder> wildcards = new ArrayList<>();
+        private final boolean is_empty;
+
+        private Index(List<FluxChatPlaceholder> placeholders) {
+
+            this.is_empty = placeholders.isEmpty();
+
+            for (FluxChatPlaceholder placeholder : placeholders) {
+                Set<String> keys = placeholder.getKeys();
+                Set<String> key_prefixes = placeholder.getKeyPrefixes();
+
+                if (keys.isEmpty() && key_prefixes.isEmpty()) {
+                    this.wildcards.add(placeholder);
+                    continue;
+                }
+
+                for (String key : keys) {
+                    this.exact.computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(placeholder);
+                }
+
+                for (String prefix : key_prefixes) {
+                    this.prefixes.insert(prefix).placeholders.add(placeholder);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return this.is_empty;
+        }
+
+        /**
+         * Exact matches come first, then the longest prefixes, then the wildcards
+         */
+        private List<FluxChatPlaceholder> route(String definition) {
+
+            Set<FluxChatPlaceholder> result = new LinkedHashSet<>();
+
+            List<FluxChatPlaceholder> exact_matches = this.exact.get(definition.toLowerCase(Locale.ROOT));
+
+            if (exact_matches != null) {
+                result.addAll(exact_matches);
+            }
+
+            List<List<FluxChatPlaceholder>> prefix_matches = new ArrayList<>();
+            TrieNode node = this.prefixes;
+
+            for (int i = 0; i < definition.length() && node != null; i++) {
+                node = node.children.get(definition.charAt(i));
+
+                if (node != null && !node.placeholders.isEmpty()) {
+                    prefix_matches.add(node.placeholders);
+                }
+            }
+
+            for (int i = prefix_matches.size() - 1; i >= 0; i--) {
+                result.addAll(prefix_matches.get(i));
+            }
+
+            result.addAll(this.wildcards);
+
+            if (result.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            return List.copyOf(result);
+        }
+    }
+
+    /**
+     * A node in the prefix trie
+     *
+     * @since    3.3.0
+     */
+    private static class TrieNode {
+
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private final List<FluxChatPlaceholder> placeholders = new ArrayList<>();
+
+        private TrieNode insert(String prefix) {
+
+            TrieNode node = this;
+
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+            }
+
+            return node;
+        }
+    }
+}
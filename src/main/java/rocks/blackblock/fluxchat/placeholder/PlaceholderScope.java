@@ -0,0 +1,41 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+/**
+ * What the value of a placeholder depends on.
+ * This determines how long a resolved value can be re-used
+ * while rendering a single message for many recipients.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public enum PlaceholderScope {
+
+    /**
+     * The value never changes, like a UUID
+     */
+    STATIC,
+
+    /**
+     * The value only depends on the player the message is about
+     */
+    SENDER,
+
+    /**
+     * The value depends on the server of the recipient
+     */
+    SERVER,
+
+    /**
+     * The value depends on the recipient itself
+     */
+    VIEWER;
+
+    /**
+     * Can a value of this scope be re-used for every recipient of a message?
+     *
+     * @since    3.3.0
+     */
+    public boolean isSharedPerMessage() {
+        return this == STATIC || this == SENDER;
+    }
+}
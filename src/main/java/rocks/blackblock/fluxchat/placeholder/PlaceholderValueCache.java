@@ -0,0 +1,132 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the resolved placeholder values of every player,
+ * for as long as the volatility of the placeholder allows.
+ *
+ * Values that only change when something happens are kept
+ * until {@link #invalidate(UUID)} is called for the player.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class PlaceholderValueCache {
+
+    // Keys can come from user input, so limit how many are kept per player
+    private static final int MAX_KEYS_PER_PLAYER = 256;
+
+    private final Map<UUID, Map<String, CachedValue>> values = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Get the cached value of the given key,
+     * or compute it when it isn't cached (anymore)
+     *
+     * @param    player_uuid   The player the value belongs to
+     * @param    key           The key of the value
+     * @param    supplier      Computes the value and its volatility
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(UUID player_uuid, String key, Supplier<Lookup<T>> supplier) {
+
+        Map<String, CachedValue> player_values = this.values.computeIfAbsent(player_uuid, uuid -> new ConcurrentHashMap<>());
+        CachedValue cached = player_values.get(key);
+        long now = System.currentTimeMillis();
+
+        if (cached != null && cached.expires_at() > now) {
+            this.hits.incrementAndGet();
+            return (T) cached.value();
+        }
+
+        this.misses.incrementAndGet();
+        Lookup<T> lookup = supplier.get();
+
+        if (lookup.volatility().isCacheable()) {
+            long ttl = lookup.volatility().getTtl();
+            long expires_at = ttl == Long.MAX_VALUE ? Long.MAX_VALUE : now + ttl;
+
+            if (player_values.size() >= MAX_KEYS_PER_PLAYER) {
+                player_values.clear();
+            }
+
+            player_values.put(key, new CachedValue(lookup.value(), expires_at));
+        } else if (cached != null) {
+            player_values.remove(key, cached);
+        }
+
+        return lookup.value();
+    }
+
+    /**
+     * Forget all the values of the given player
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void invalidate(UUID player_uuid) {
+        this.values.remove(player_uuid);
+    }
+
+    /**
+     * Forget every value of every player
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void invalidateAll() {
+        this.values.clear();
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * How many values are currently cached
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int size() {
+
+        int result = 0;
+
+        for (Map<String, CachedValue> player_values : this.values.values()) {
+            result += player_values.size();
+        }
+
+        return result;
+    }
+
+    /**
+     * The result of a lookup: a value (which can be null)
+     * and how long it can be cached
+     *
+     * @since    3.3.0
+     */
+    public record Lookup<T>(@Nullable T value, PlaceholderVolatility volatility) {}
+
+    /**
+     * A cached value
+     *
+     * @since    3.3.0
+     */
+    private record CachedValue(@Nullable Object value, long expires_at) {}
+}
@@ -0,0 +1,63 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+/**
+ * How often the value of a placeholder changes.
+ * This determines how long a resolved value
+ * can be kept in the {@link PlaceholderValueCache}.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public enum PlaceholderVolatility {
+
+    /**
+     * The value never changes, like a UUID
+     */
+    CONSTANT(Long.MAX_VALUE),
+
+    /**
+     * The value only changes when something happens,
+     * like a rank update or a nickname change.
+     * It is kept until the player's values are invalidated.
+     */
+    ON_CHANGE(Long.MAX_VALUE),
+
+    /**
+     * The value changes every now and then
+     */
+    SLOW(60_000),
+
+    /**
+     * The value changes every few seconds, like the ping
+     */
+    FAST(2_000),
+
+    /**
+     * The value can change at any time and is never cached
+     */
+    VOLATILE(0);
+
+    private final long ttl;
+
+    PlaceholderVolatility(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * How many milliseconds a value can be cached
+     *
+     * @since    3.3.0
+     */
+    public long getTtl() {
+        return this.ttl;
+    }
+
+    /**
+     * Can values of this kind be cached at all?
+     *
+     * @since    3.3.0
+     */
+    public boolean isCacheable() {
+        return this.ttl > 0;
+    }
+}
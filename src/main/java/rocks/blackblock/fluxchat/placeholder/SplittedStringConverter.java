@@ -88,12 +88,11 @@ public class SplittedStringConverter {
      */
     private void handleOpeningTag(StringSplitter.Entry entry) {
 
-        TextComponent.Builder new_builder = Component.text();
+        // The style was already resolved when the string was parsed
+        TextComponent.Builder new_builder = Component.text().style(entry.getStyle());
 
         this.current = new_builder;
         this.chain.add(new_builder);
-
-        entry.applyStyle(new_builder);
     }
 
     /**
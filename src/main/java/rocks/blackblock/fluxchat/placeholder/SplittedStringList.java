@@ -7,97 +7,129 @@ import java.util.*;
 /**
  * A list specifically for holding SplittedString entries.
  *
+ * The list is put together by a {@link Builder} and can not be modified afterwards.
+ * All of its fields are final, so it can be shared between threads and cached without copying.
+ *
  * @author   Jelle De Loecker
  * @since    3.2.0
  */
 public class SplittedStringList implements List<StringSplitter.Entry> {
 
-    private final List<StringSplitter.Entry> entries = new ArrayList<>();
-    private final List<StringSplitter.Entry> open_tags_chain = new ArrayList<>();
+    private final List<StringSplitter.Entry> entries;
 
     /**
-     * Add an entry, but fix the chain
+     * Create the instance
      *
      * @author   Jelle De Loecker
-     * @since    3.2.0
+     * @since    3.3.0
      */
-    @Override
-    public boolean add(StringSplitter.Entry entry) {
-
-        if (entry.isReset()) {
-            this.open_tags_chain.clear();
-            this.entries.add(entry);
-            return true;
-        }
-
-        if (entry.isOpeningTag()) {
-            this.open_tags_chain.add(entry);
-        } else if (entry.isClosingTag()) {
-            this.fixClosingTags(entry);
-        }
-
-        return this.entries.add(entry);
+    private SplittedStringList(List<StringSplitter.Entry> entries) {
+        this.entries = List.copyOf(entries);
     }
 
     /**
-     * Make sure all open tags are closed,
-     * so we don't have any overlapping tags.
+     * Collects the entries of a SplittedStringList
      *
      * @author   Jelle De Loecker
-     * @since    3.2.0
+     * @since    3.3.0
      */
-    private void fixClosingTags(StringSplitter.Entry entry) {
+    public static class Builder {
+
+        private final List<StringSplitter.Entry> entries = new ArrayList<>();
+        private final List<StringSplitter.Entry> open_tags_chain = new ArrayList<>();
+
+        /**
+         * Add an entry, but fix the chain
+         *
+         * @author   Jelle De Loecker
+         * @since    3.2.0
+         */
+        public void add(StringSplitter.Entry entry) {
+
+            if (entry.isReset()) {
+                this.open_tags_chain.clear();
+                this.entries.add(entry);
+                return;
+            }
+
+            if (entry.isOpeningTag()) {
+                this.open_tags_chain.add(entry);
+            } else if (entry.isClosingTag()) {
+                this.fixClosingTags(entry);
+            }
 
-        if (this.open_tags_chain.isEmpty()) {
-            return;
+            this.entries.add(entry);
         }
 
-        String closing_tag_name = entry.getTagName();
+        /**
+         * Make sure all open tags are closed,
+         * so we don't have any overlapping tags.
+         *
+         * @author   Jelle De Loecker
+         * @since    3.2.0
+         */
+        private void fixClosingTags(StringSplitter.Entry entry) {
+
+            if (this.open_tags_chain.isEmpty()) {
+                return;
+            }
 
-        if (closing_tag_name == null) {
-            return;
-        }
+            String closing_tag_name = entry.getTagName();
 
-        // First see if the tag we're closing is actually in the chain
-        // If it's not, we're just going to ignore it.
-        Integer last_index = null;
+            if (closing_tag_name == null) {
+                return;
+            }
 
-        if (entry.isReset()) {
-            last_index = -1;
-        } else {
+            // First see if the tag we're closing is actually in the chain
+            // If it's not, we're just going to ignore it.
+            Integer last_index = null;
 
-            for (int i = this.open_tags_chain.size() - 1; i >= 0; i--) {
-                StringSplitter.Entry current = this.open_tags_chain.get(i);
+            if (entry.isReset()) {
+                last_index = -1;
+            } else {
 
-                if (current.getTagName().equals(closing_tag_name)) {
-                    last_index = i;
-                    break;
+                for (int i = this.open_tags_chain.size() - 1; i >= 0; i--) {
+                    StringSplitter.Entry current = this.open_tags_chain.get(i);
+
+                    if (current.getTagName().equals(closing_tag_name)) {
+                        last_index = i;
+                        break;
+                    }
                 }
             }
-        }
 
-        if (last_index == null) {
-            return;
-        }
+            if (last_index == null) {
+                return;
+            }
 
-        // Now remove all the open tags that are after the last index
-        for (int i = this.open_tags_chain.size() - 1; i >= last_index; i--) {
+            // Now remove all the open tags that are after the last index
+            for (int i = this.open_tags_chain.size() - 1; i >= last_index; i--) {
 
-            if (i < 0) {
-                break;
-            }
+                if (i < 0) {
+                    break;
+                }
 
-            // Remove the opening tag from the chain
-            StringSplitter.Entry current = this.open_tags_chain.remove(i);
+                // Remove the opening tag from the chain
+                StringSplitter.Entry current = this.open_tags_chain.remove(i);
 
-            if (i == last_index) {
-                break;
-            }
+                if (i == last_index) {
+                    break;
+                }
 
-            // But also: add a closing tag to the list
-            this.entries.add(new StringSplitter.Entry(current.getTagName(), StringSplitter.EntryType.CLOSING_TAG));
+                // But also: add a closing tag to the list
+                this.entries.add(new StringSplitter.Entry(current.getTagName(), StringSplitter.EntryType.CLOSING_TAG));
+            }
         }
 
+        /**
+         * Create the immutable list
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        public SplittedStringList build() {
+            return new SplittedStringList(this.entries);
+        }
     }
 
     @Override
@@ -135,7 +167,7 @@ public class SplittedStringList implements List<StringSplitter.Entry> {
 
     @Override
     public boolean remove(Object o) {
-        return entries.remove(o);
+        throw new UnsupportedOperationException();
     }
 
     @Override
@@ -145,27 +177,27 @@ public class SplittedStringList implements List<StringSplitter.Entry> {
 
     @Override
     public boolean addAll(@NotNull Collection<? extends StringSplitter.Entry> collection) {
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     @Override
     public boolean addAll(int i, @NotNull Collection<? extends StringSplitter.Entry> collection) {
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     @Override
     public boolean removeAll(@NotNull Collection<?> collection) {
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     @Override
     public boolean retainAll(@NotNull Collection<?> collection) {
-        return false;
+        throw new UnsupportedOperationException();
     }
 
     @Override
     public void clear() {
-        this.entries.clear();
+        throw new UnsupportedOperationException();
     }
 
     @Override
@@ -173,19 +205,24 @@ public class SplittedStringList implements List<StringSplitter.Entry> {
         return this.entries.get(i);
     }
 
+    @Override
+    public boolean add(StringSplitter.Entry entry) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public StringSplitter.Entry set(int i, StringSplitter.Entry entry) {
-        return null;
+        throw new UnsupportedOperationException();
     }
 
     @Override
     public void add(int i, StringSplitter.Entry entry) {
-        return;
+        throw new UnsupportedOperationException();
     }
 
     @Override
     public StringSplitter.Entry remove(int i) {
-        return null;
+        throw new UnsupportedOperationException();
     }
 
     @Override
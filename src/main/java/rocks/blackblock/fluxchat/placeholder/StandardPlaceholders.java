@@ -31,11 +31,31 @@ import rocks.blackblock.fluxchat.FluxChatPlayer;
 import rocks.blackblock.fluxchat.api.FluxChatPlaceholder;
 import net.kyori.adventure.text.TextComponent;
 
+import java.util.Set;
+
 public class StandardPlaceholders implements FluxChatPlaceholder {
 
     private static final String TPS_FORMAT = "%.1f";
     private static final String MSPT_FORMAT = "%.1f";
 
+    private static final Set<String> KEYS = Set.of(
+            "tab_display_name", "username", "name", "display_username", "display_name",
+            "coloured_display_name", "server_name", "uuid", "pronouns", "pronouns_suffix",
+            "timezone", "now", "server_load", "server_load_coloured", "mspt", "tps", "ping"
+    );
+
+    private static final Set<String> KEY_PREFIXES = Set.of("has_perm_");
+
+    @Override
+    public Set<String> getKeys() {
+        return KEYS;
+    }
+
+    @Override
+    public Set<String> getKeyPrefixes() {
+        return KEY_PREFIXES;
+    }
+
     /**
      * Looks for a TextComponent replacement for the given definition.
      *
@@ -57,13 +77,38 @@ public class StandardPlaceholders implements FluxChatPlaceholder {
         return null;
     }
 
+    @Override
+    public PlaceholderScope getScope(String definition) {
+        return switch (definition.toLowerCase()) {
+            case "username", "uuid" -> PlaceholderScope.STATIC;
+            default -> PlaceholderScope.SENDER;
+        };
+    }
+
+    @Override
+    public PlaceholderVolatility getVolatility(String definition) {
+
+        // Permission changes cause a LuckPerms recalculation, which invalidates the cache
+        if (definition.startsWith("has_perm_")) {
+            return PlaceholderVolatility.ON_CHANGE;
+        }
+
+        return switch (definition.toLowerCase()) {
+            case "username", "uuid" -> PlaceholderVolatility.CONSTANT;
+            case "name", "display_username", "display_name", "coloured_display_name", "tab_display_name",
+                 "pronouns", "pronouns_suffix", "timezone", "server_name" -> PlaceholderVolatility.ON_CHANGE;
+            case "now", "server_load", "server_load_coloured", "mspt", "tps", "ping" -> PlaceholderVolatility.FAST;
+            default -> PlaceholderVolatility.VOLATILE;
+        };
+    }
+
     @Override
     public String lookupStringReplacement(Player player, String definition) {
 
         // dynamic placeholders
         if (definition.startsWith("has_perm_") && definition.length() > "has_perm_".length()) {
             String perm = definition.substring("has_perm_".length());
-            return Boolean.toString(player.hasPermission(perm));
+            return Boolean.toString(FluxChatPlayer.get(player).hasPermission(perm));
         }
 
         String result = null;
@@ -2,13 +2,11 @@ package rocks.blackblock.fluxchat.placeholder;
 
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
 import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Split a string based on placeholders
  *
@@ -25,57 +23,68 @@ public class StringSplitter {
     }
 
     /**
-     * Convert a string into a splitted string list
+     * Marker for a cached index that hasn't been looked up yet
+     */
+    private static final int UNKNOWN_INDEX = -2;
+
+    /**
+     * Convert a string into a splitted string list.
+     * This is done in a single pass: segments are tracked by their offsets
+     * and only turned into substrings once they are complete.
      *
      * @author   Jelle De Loecker
      * @since    3.2.0
      */
     public static SplittedStringList parse(String input) {
 
-        SplittedStringList result = new SplittedStringList();
+        SplittedStringList.Builder result = new SplittedStringList.Builder();
 
         if (input == null || input.isEmpty()) {
-            return result;
+            return result.build();
         }
 
         State current_state = State.PLAIN_TEXT;
 
         int length = input.length();
-        int current_index = 0;
-        StringBuilder string_buffer = new StringBuilder();
+        int current_index;
+        int segment_start = 0;
+
+        // The positions of the next special characters.
+        // They only ever move forward, so the input is scanned a fixed amount of times
+        int next_closing_index = UNKNOWN_INDEX;
+        int next_opening_index = UNKNOWN_INDEX;
+        int next_placeholder_index = UNKNOWN_INDEX;
 
         for (current_index = 0; current_index < length; current_index++) {
 
             // We're going to parse this string 1 char at a time
             char current_char = input.charAt(current_index);
             State new_state = null;
+            int next_segment_start = current_index + 1;
 
             if (current_state == State.PLAIN_TEXT) {
                 if (current_char == '<') {
 
                     // Look for the closing '>' character
-                    int closing_index = input.indexOf('>', current_index);
+                    next_closing_index = nextIndexOf(input, '>', current_index, next_closing_index);
 
-                    if (closing_index == -1) {
-                        string_buffer.append(current_char);
+                    if (next_closing_index == -1) {
                         continue;
                     }
 
                     // See if there is another '<' character before the closing '>'
-                    int opening_index = input.indexOf('<', current_index + 1);
+                    next_opening_index = nextIndexOf(input, '<', current_index + 1, next_opening_index);
 
-                    if (opening_index != -1 && opening_index < closing_index) {
+                    if (next_opening_index != -1 && next_opening_index < next_closing_index) {
                         // There is another '<' before the closing '>', so this is not a tag
-                        string_buffer.append(current_char);
                         continue;
                     }
 
                     // See if there is a '{' character before the closing '>'
-                    opening_index = input.indexOf('{', current_index + 1);
+                    next_placeholder_index = nextIndexOf(input, '{', current_index + 1, next_placeholder_index);
 
-                    if (opening_index != -1 && opening_index < closing_index) {
+                    if (next_placeholder_index != -1 && next_placeholder_index < next_closing_index) {
                         // There is a '{' before the closing '>', so this is not a tag
-                        string_buffer.append(current_char);
                         continue;
                     }
 
@@ -83,14 +92,13 @@ public class StringSplitter {
                     char next_char = input.charAt(current_index + 1);
 
                     if (next_char == '/') {
-                        // This is a closing tag
+                        // This is a closing tag, skip the slash too
                         new_state = State.CLOSE_TAG;
-                        current_index++;
+                        next_segment_start = current_index + 2;
                     } else {
 
                         // If the next_char is not a letter, this is not a tag
                         if (!Character.isLetter(next_char)) {
-                            string_buffer.append(current_char);
                             continue;
                         }
 
@@ -111,55 +119,75 @@ public class StringSplitter {
                 }
             }
 
-            // Keep appending chars as long as the state doesn't change
+            // Keep going as long as the state doesn't change
             if (new_state == null) {
-                string_buffer.append(current_char);
                 continue;
             }
 
-            if (!string_buffer.isEmpty()) {
-                String current_string_result = string_buffer.toString();
-
-                if (current_state == State.PLAIN_TEXT) {
-                    // Add the plain text
-                    Entry.parseSimplerText(current_string_result, result);
-                } else if (current_state == State.OPEN_TAG) {
-                    // Add the open tag
-                    result.add(new Entry(current_string_result, EntryType.OPENING_TAG));
-                } else if (current_state == State.CLOSE_TAG) {
-                    // Add the close tag
-                    result.add(new Entry(current_string_result, EntryType.CLOSING_TAG));
-                } else if (current_state == State.PLACEHOLDER) {
-                    // Add the placeholder
-                    result.add(new Entry(current_string_result, EntryType.PLACEHOLDER));
-                }
-
-                string_buffer.setLength(0);
+            if (current_index > segment_start) {
+                addSegment(input, segment_start, current_index, current_state, result);
             }
 
             current_state = new_state;
+            segment_start = next_segment_start;
+            current_index = next_segment_start - 1;
         }
 
-        if (!string_buffer.isEmpty()) {
+        if (segment_start < length) {
             // Add the last part
-            String current_string_result = string_buffer.toString();
+            addSegment(input, segment_start, length, current_state, result);
+        }
 
-            if (current_state == State.PLAIN_TEXT) {
-                // Add the plain text
-                Entry.parseSimplerText(current_string_result, result);
-            } else if (current_state == State.OPEN_TAG) {
-                // Add the open tag
-                result.add(new Entry(current_string_result, EntryType.OPENING_TAG));
-            } else if (current_state == State.CLOSE_TAG) {
-                // Add the close tag
-                result.add(new Entry(current_string_result, EntryType.CLOSING_TAG));
-            } else if (current_state == State.PLACEHOLDER) {
-                // Add the placeholder
-                result.add(new Entry(current_string_result, EntryType.PLACEHOLDER));
-            }
+        return result.build();
+    }
+
+    /**
+     * Get the index of the next occurence of the given character,
+     * re-using the previous result when it is still ahead of the given index
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private static int nextIndexOf(String input, char character, int from_index, int cached_index) {
+
+        if (cached_index == -1) {
+            // There are no more occurences at all
+            return -1;
+        }
+
+        if (cached_index != UNKNOWN_INDEX && cached_index >= from_index) {
+            return cached_index;
         }
 
-        return result;
+        return input.indexOf(character, from_index);
+    }
+
+    /**
+     * Add the segment between the given offsets
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private static void addSegment(String input, int start, int end, State state, SplittedStringList.Builder result) {
+
+        if (state == State.PLAIN_TEXT) {
+            // Add the plain text
+            Entry.parseSimplerText(input, start, end, result);
+            return;
+        }
+
+        String content = input.substring(start, end);
+
+        if (state == State.OPEN_TAG) {
+            // Add the open tag
+            result.add(new Entry(content, EntryType.OPENING_TAG));
+        } else if (state == State.CLOSE_TAG) {
+            // Add the close tag
+            result.add(new Entry(content, EntryType.CLOSING_TAG));
+        } else if (state == State.PLACEHOLDER) {
+            // Add the placeholder
+            result.add(new Entry(content, EntryType.PLACEHOLDER));
+        }
     }
 
     /**
@@ -172,16 +200,10 @@ public class StringSplitter {
 
         private final String string;
         private final EntryType type;
-        private TextColor color = null;
-        private boolean parsed_tag = false;
-        private boolean is_bold = false;
-        private boolean is_italic = false;
-        private boolean is_obfuscated = false;
-        private boolean is_underlined = false;
-        private boolean is_strikethrough = false;
-        private boolean allows_decoration = true;
-        private boolean is_reset = false;
-        private String tag_name = null;
+        private final boolean allows_decoration;
+        private final String tag_name;
+        private final boolean is_reset;
+        private final Style style;
 
         /**
          * Instantiate a new entry as plain text
@@ -194,20 +216,40 @@ public class StringSplitter {
         }
 
         /**
-         * Instantiate a new entry with a specific type
+         * Instantiate a new entry with a specific type.
+         * Tags are parsed right away, so an entry never changes afterwards
+         * and can be shared between threads.
          *
          * @author   Jelle De Loecker
          * @since    3.2.0
          */
         public Entry(String content, EntryType type) {
 
+            boolean allows_decoration = true;
+
             if (type == EntryType.PLACEHOLDER && content.startsWith("!")) {
-                this.allows_decoration = false;
+                allows_decoration = false;
                 content = content.substring(1);
             }
 
             this.string = content;
             this.type = type;
+            this.allows_decoration = allows_decoration;
+
+            if (type == EntryType.OPENING_TAG || type == EntryType.COLOR_CODE || type == EntryType.CLOSING_TAG) {
+                this.tag_name = content.toLowerCase().trim();
+            } else {
+                this.tag_name = null;
+            }
+
+            if (this.isOpeningTag()) {
+                Style.Builder style_builder = Style.style();
+                this.is_reset = parseTag(this.tag_name, type == EntryType.COLOR_CODE, style_builder);
+                this.style = style_builder.build();
+            } else {
+                this.is_reset = false;
+                this.style = null;
+            }
         }
 
         /**
@@ -217,7 +259,6 @@ public class StringSplitter {
          * @since    3.2.0
          */
         public boolean isReset() {
-            this.parseTag();
             return this.is_reset;
         }
 
@@ -269,7 +310,6 @@ public class StringSplitter {
          */
         @Nullable
         public String getTagName() {
-            this.parseTag();
             return this.tag_name;
         }
 
@@ -284,6 +324,18 @@ public class StringSplitter {
             return this.allows_decoration;
         }
 
+        /**
+         * Get the style this opening tag starts,
+         * or null if this is not an opening tag
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        @Nullable
+        public Style getStyle() {
+            return this.style;
+        }
+
         /**
          * Apply the style to the given builder
          *
@@ -292,111 +344,77 @@ public class StringSplitter {
          */
         public void applyStyle(TextComponent.Builder builder) {
 
-            if (this.isOpeningTag()) {
-                this.parseTag();
-            } else {
+            if (this.style == null) {
                 return;
             }
 
-            if (this.is_bold) {
-                builder.decoration(TextDecoration.BOLD, true);
-            }
-
-            if (this.is_italic) {
-                builder.decoration(TextDecoration.ITALIC, true);
-            }
-
-            if (this.is_obfuscated) {
-                builder.decoration(TextDecoration.OBFUSCATED, true);
-            }
-
-            if (this.is_underlined) {
-                builder.decoration(TextDecoration.UNDERLINED, true);
-            }
-
-            if (this.is_strikethrough) {
-                builder.decoration(TextDecoration.STRIKETHROUGH, true);
+            for (TextDecoration decoration : TextDecoration.values()) {
+                if (this.style.decoration(decoration) == TextDecoration.State.TRUE) {
+                    builder.decoration(decoration, true);
+                }
             }
 
-            if (this.color != null) {
-                builder.color(this.color);
+            if (this.style.color() != null) {
+                builder.color(this.style.color());
             }
         }
 
         /**
-         * Parse the tag
+         * Parse the given (lowercased) opening tag into the style builder.
+         * Returns true if the tag is a reset.
          *
          * @author   Jelle De Loecker
          * @since    3.2.0
          */
-        private void parseTag() {
+        private static boolean parseTag(String color_name, boolean is_color_code, Style.Builder style) {
 
-            if (this.parsed_tag) {
-                return;
-            }
-
-            this.parsed_tag = true;
-
-            if (!this.isOpeningTag() && !this.isClosingTag()) {
-                return;
-            }
-
-            String color_name = this.string.toLowerCase().trim();
-
-            if (this.isClosingTag()) {
-                this.tag_name = color_name;
-                return;
-            }
-
-            this.tag_name = color_name;
-
-            if (this.isColorCode()) {
+            if (is_color_code) {
                 String code = color_name.substring(1);
 
                 switch (code) {
-                    case "l" -> this.is_bold = true;
-                    case "o" -> this.is_italic = true;
-                    case "k" -> this.is_obfuscated = true;
-                    case "n" -> this.is_underlined = true;
-                    case "m" -> this.is_strikethrough = true;
-                    case "r" -> this.is_reset = true;
+                    case "l" -> style.decoration(TextDecoration.BOLD, true);
+                    case "o" -> style.decoration(TextDecoration.ITALIC, true);
+                    case "k" -> style.decoration(TextDecoration.OBFUSCATED, true);
+                    case "n" -> style.decoration(TextDecoration.UNDERLINED, true);
+                    case "m" -> style.decoration(TextDecoration.STRIKETHROUGH, true);
+                    case "r" -> {
+                        return true;
+                    }
                     default -> {
                         try {
-                            this.color = this.parseColorCode(code);
+                            style.color(parseColorCode(code));
                         } catch (Throwable nfe) {
                             // Ignore
-                            this.color = null;
                         }
                     }
                 }
 
-                return;
+                return false;
             }
 
             switch (color_name) {
                 case "bold" -> {
-                    this.is_bold = true;
-                    return;
+                    style.decoration(TextDecoration.BOLD, true);
+                    return false;
                 }
                 case "italic" -> {
-                    this.is_italic = true;
-                    return;
+                    style.decoration(TextDecoration.ITALIC, true);
+                    return false;
                 }
                 case "obfuscated" -> {
-                    this.is_obfuscated = true;
-                    return;
+                    style.decoration(TextDecoration.OBFUSCATED, true);
+                    return false;
                 }
                 case "underlined" -> {
-                    this.is_underlined = true;
-                    return;
+                    style.decoration(TextDecoration.UNDERLINED, true);
+                    return false;
                 }
                 case "strikethrough" -> {
-                    this.is_strikethrough = true;
-                    return;
+                    style.decoration(TextDecoration.STRIKETHROUGH, true);
+                    return false;
                 }
                 case "reset" -> {
-                    this.is_reset = true;
-                    return;
+                    return true;
                 }
             }
 
@@ -404,8 +422,8 @@ public class StringSplitter {
             if (color_name.startsWith("#")) {
                 try {
                     int color_value = Integer.parseInt(color_name.substring(1), 16);
-                    this.color = TextColor.color(color_value);
-                    return;
+                    style.color(TextColor.color(color_value));
+                    return false;
                 } catch (NumberFormatException nfe) {
                     // Ignore
                 }
@@ -414,7 +432,7 @@ public class StringSplitter {
             // Remove all non-alphanumeric characters
             color_name = color_name.replaceAll("[^a-z0-9]", "");
 
-            this.color = switch (color_name) {
+            style.color(switch (color_name) {
                 case "black" -> NamedTextColor.BLACK;
                 case "darkblue" -> NamedTextColor.DARK_BLUE;
                 case "darkgreen" -> NamedTextColor.DARK_GREEN;
@@ -432,7 +450,9 @@ public class StringSplitter {
                 case "yellow" -> NamedTextColor.YELLOW;
                 case "white" -> NamedTextColor.WHITE;
                 default -> null;
-            };
+            });
+
+            return false;
         }
 
         /**
@@ -442,10 +462,10 @@ public class StringSplitter {
          * @since    3.2.0
          */
         @Nullable
-        private TextColor parseColorCode(String code) {
+        private static TextColor parseColorCode(String code) {
 
             if (code.length() == 2) {
-                return this.parseColorCode(code.substring(1));
+                return parseColorCode(code.substring(1));
             }
 
             TextColor result = switch (code) {
@@ -479,8 +499,7 @@ public class StringSplitter {
          */
         @Nullable
         public TextColor getColor() {
-            this.parseTag();
-            return this.color;
+            return this.style == null ? null : this.style.color();
         }
 
         public EntryType getType() {
@@ -498,53 +517,52 @@ public class StringSplitter {
          * @author   Jelle De Loecker
          * @since    3.2.0
          */
-        public static void parseSimplerText(String text, SplittedStringList list) {
+        public static void parseSimplerText(String text, SplittedStringList.Builder list) {
+            parseSimplerText(text, 0, text.length(), list);
+        }
+
+        /**
+         * Parse the given part of a string that does not contain any placeholders or tags,
+         * but might contain formatting codes.
+         *
+         * @author   Jelle De Loecker
+         * @since    3.3.0
+         */
+        public static void parseSimplerText(String text, int start, int end, SplittedStringList.Builder list) {
 
             // The text can look like this at this point: "§eYellow §cRed"
             // We need to split it up into separate entries: "§e", "Yellow ", "§c", "Red"
 
-            List<String> parts = new ArrayList<>();
-            StringBuilder builder = new StringBuilder();
-            boolean last_was_tag = false;
-
-            for (int i = 0; i < text.length(); i++) {
-                char c = text.charAt(i);
+            int part_start = start;
+            int i = start;
 
-                if (c == '§') {
-                    if (builder.length() > 0) {
-                        parts.add(builder.toString());
-                        builder.setLength(0);
-                    }
+            while (i < end) {
 
-                    builder.append(c);
-                    last_was_tag = true;
-                } else {
-                    if (last_was_tag) {
-                        builder.append(c);
-                        parts.add(builder.toString());
-                        builder.setLength(0);
-                        last_was_tag = false;
-                        continue;
-                    }
+                if (text.charAt(i) != '§') {
+                    i++;
+                    continue;
+                }
 
-                    builder.append(c);
+                if (i > part_start) {
+                    list.add(new Entry(text.substring(part_start, i), EntryType.PLAIN_TEXT));
                 }
-            }
 
-            if (!builder.isEmpty()) {
-                parts.add(builder.toString());
-            }
+                // A color code is the '§' and the character after it,
+                // unless that is another '§' or the end of the text
+                int code_end = i + 1;
 
-            for (String part : parts) {
-                if (part.isEmpty()) {
-                    continue;
+                if (code_end < end && text.charAt(code_end) != '§') {
+                    code_end++;
                 }
 
-                if (part.charAt(0) == '§') {
-                    list.add(new Entry(part, EntryType.COLOR_CODE));
-                } else {
-                    list.add(new Entry(part, EntryType.PLAIN_TEXT));
-                }
+                list.add(new Entry(text.substring(i, code_end), EntryType.COLOR_CODE));
+
+                i = code_end;
+                part_start = code_end;
+            }
+
+            if (part_start < end) {
+                list.add(new Entry(text.substring(part_start, end), EntryType.PLAIN_TEXT));
             }
         }
     }
@@ -0,0 +1,226 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A plain string split into literal parts and "{placeholder}" slots.
+ * The string is only scanned once, when compiling,
+ * and every render writes into a single pre-sized buffer.
+ *
+ * Slots that can not be resolved are left untouched.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public final class StringTemplate {
+
+    private static final int MAX_CACHED = 512;
+
+    private static final BoundedCache<StringTemplate> CACHE = new BoundedCache<>(MAX_CACHED);
+
+    private final String source;
+
+    // Literal parts are stored as-is, slots as the definition without brackets
+    private final String[] segments;
+    private final boolean[] is_slot;
+    private final int literal_length;
+
+    /**
+     * Create the instance
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private StringTemplate(String source, String[] segments, boolean[] is_slot, int literal_length) {
+        this.source = source;
+        this.segments = segments;
+        this.is_slot = is_slot;
+        this.literal_length = literal_length;
+    }
+
+    /**
+     * Get the (cached) template of the given string
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static StringTemplate of(String source) {
+        return CACHE.get(source, StringTemplate::compile);
+    }
+
+    /**
+     * Get the cache of compiled string templates
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static BoundedCache<StringTemplate> getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Split the given string into literals and slots.
+     * A slot is a "{", followed by at least 1 character that isn't a bracket, and a "}".
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static StringTemplate compile(String source) {
+
+        List<String> segments = new ArrayList<>();
+        List<Boolean> is_slot = new ArrayList<>();
+        int literal_length = 0;
+        int literal_start = 0;
+        int length = source.length();
+        int i = 0;
+
+        while (i < length) {
+
+            if (source.charAt(i) != '{') {
+                i++;
+                continue;
+            }
+
+            // Look for the end of the slot, stopping at any other bracket
+            int end = i + 1;
+
+            while (end < length) {
+                char c = source.charAt(end);
+
+                if (c == '{' || c == '}') {
+                    break;
+                }
+
+                end++;
+            }
+
+            if (end >= length || source.charAt(end) != '}' || end == i + 1) {
+                // Not a slot: continue from the next character
+                i = end > i + 1 ? end : i + 1;
+                continue;
+            }
+
+            if (i > literal_start) {
+                segments.add(source.substring(literal_start, i));
+                is_slot.add(false);
+                literal_length += i - literal_start;
+            }
+
+            segments.add(source.substring(i + 1, end));
+            is_slot.add(true);
+
+            i = end + 1;
+            literal_start = i;
+        }
+
+        if (literal_start < length) {
+            segments.add(source.substring(literal_start));
+            is_slot.add(false);
+            literal_length += length - literal_start;
+        }
+
+        boolean[] slots = new boolean[is_slot.size()];
+
+        for (int j = 0; j < slots.length; j++) {
+            slots[j] = is_slot.get(j);
+        }
+
+        return new StringTemplate(source, segments.toArray(new String[0]), slots, literal_length);
+    }
+
+    /**
+     * Does this template contain any slots?
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public boolean hasSlots() {
+        return this.literal_length != this.source.length();
+    }
+
+    /**
+     * Get the definitions of all the slots, in order
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public List<String> getSlots() {
+
+        List<String> result = new ArrayList<>();
+
+        for (int i = 0; i < this.segments.length; i++) {
+            if (this.is_slot[i]) {
+                result.add(this.segments[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * How many literal parts & slots this template has
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public int getSegmentCount() {
+        return this.segments.length;
+    }
+
+    /**
+     * Get the literal text or the slot definition at the given index
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public String getSegment(int index) {
+        return this.segments[index];
+    }
+
+    /**
+     * Is the segment at the given index a slot?
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public boolean isSlot(int index) {
+        return this.is_slot[index];
+    }
+
+    /**
+     * Render the template.
+     * The resolver gets the slot definition and returns null if it can't replace it.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public String render(Function<String, String> resolver) {
+
+        if (!this.hasSlots()) {
+            return this.source;
+        }
+
+        StringBuilder builder = new StringBuilder(this.literal_length + 16 * this.segments.length);
+
+        for (int i = 0; i < this.segments.length; i++) {
+            String segment = this.segments[i];
+
+            if (!this.is_slot[i]) {
+                builder.append(segment);
+                continue;
+            }
+
+            String replacement = resolver.apply(segment);
+
+            if (replacement == null) {
+                builder.append('{').append(segment).append('}');
+            } else {
+                builder.append(replacement);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package rocks.blackblock.fluxchat.placeholder;
+
+/**
+ * A size-bounded LRU cache of compiled templates.
+ * Strings like LuckPerms prefixes, nicknames and coloured values
+ * are converted over and over again, so they are only parsed once.
+ *
+ * The cached templates are immutable and can be shared between threads.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public final class TemplateCache {
+
+    private static final int MAX_ENTRIES = 2048;
+    private static final int MAX_LENGTH = 512;
+
+    private static final BoundedCache<CompiledTemplate> CACHE = new BoundedCache<>(MAX_ENTRIES);
+
+    private TemplateCache() {}
+
+    /**
+     * Get the compiled template of the given string
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static CompiledTemplate get(String source) {
+
+        if (source == null || source.isEmpty()) {
+            return CompiledTemplate.EMPTY;
+        }
+
+        // Don't let huge strings push everything else out
+        if (source.length() > MAX_LENGTH) {
+            CACHE.countMiss();
+            return CompiledTemplate.compile(source);
+        }
+
+        return CACHE.get(source, CompiledTemplate::compile);
+    }
+
+    /**
+     * Remove all cached templates
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    public static int size() {
+        return CACHE.size();
+    }
+
+    public static long getHits() {
+        return CACHE.getHits();
+    }
+
+    public static long getMisses() {
+        return CACHE.getMisses();
+    }
+
+    /**
+     * Get the hit rate, between 0 and 1
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public static double getHitRate() {
+        return CACHE.getHitRate();
+    }
+}
@@ -5,6 +5,7 @@ import com.google.gson.JsonObject;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.ServerConnection;
@@ -14,14 +15,25 @@ import com.velocitypowered.api.proxy.server.ServerInfo;
 import rocks.blackblock.fluxchat.FluxChatPlayer;
 import rocks.blackblock.fluxchat.FluxChatPlugin;
 import rocks.blackblock.fluxchat.config.FluxChatConfig;
+import rocks.blackblock.fluxchat.monitoring.ErrorSentry;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.Style;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the tab lists of all players up-to-date.
+ *
+ * Changes only mark the affected players as dirty,
+ * and the flusher (which runs at a limited rate) only updates their entries.
+ * Viewers that need their whole tab list checked
+ * (because they just joined or switched servers) are marked separately.
+ */
 public class FluxChatTabList {
 
     public static FluxChatTabList instance = null;
@@ -29,54 +41,121 @@ public class FluxChatTabList {
     public final ProxyServer proxy_server;
     public final FluxChatPlugin plugin;
 
-    private String tablist_header = null;
-    private String tablist_footer = null;
+    private volatile TabHeaderFooter header_footer = null;
     private int update_counter = 0;
     private long last_playerlist_push = System.currentTimeMillis();
 
+    private final TabRenderCache render_cache = new TabRenderCache();
+
+    // Players whose entry changed, viewers that need a full check & players that left
+    private final Set<UUID> dirty_players = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> dirty_viewers = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> removed_players = ConcurrentHashMap.newKeySet();
+
+    // The latency that was last pushed for each player
+    private final Map<UUID, Long> pushed_pings = new ConcurrentHashMap<>();
+    private volatile long last_full_refresh = System.currentTimeMillis();
+
+    private final AtomicLong flush_count = new AtomicLong();
+    private final AtomicLong idle_flush_count = new AtomicLong();
+    private final AtomicLong entries_added = new AtomicLong();
+    private final AtomicLong entries_removed = new AtomicLong();
+    private final AtomicLong updates_sent = new AtomicLong();
+    private final AtomicLong updates_suppressed = new AtomicLong();
+
     public FluxChatTabList(FluxChatPlugin plugin, ProxyServer proxy_server) {
         this.proxy_server = proxy_server;
         this.plugin = plugin;
         FluxChatTabList.instance = this;
     }
 
+    /**
+     * Compile the header & footer of the given config
+     *
+     * @since    3.3.0
+     */
+    public void configure(FluxChatConfig config) {
+        this.header_footer = TabHeaderFooter.compile(config);
+    }
+
     @Subscribe
     public void connect(ServerConnectedEvent event) {
-        update();
+        this.markSwitched(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * The switch is only complete (and the client's tab list reset) after this
+     *
+     * @since    3.3.0
+     */
+    @Subscribe
+    public void connected(ServerPostConnectEvent event) {
+        this.markSwitched(event.getPlayer().getUniqueId());
     }
 
     @Subscribe
     public void disconnect(DisconnectEvent event) {
-        update();
+        UUID uuid = event.getPlayer().getUniqueId();
+
+        this.dirty_players.remove(uuid);
+        this.dirty_viewers.remove(uuid);
+        this.pushed_pings.remove(uuid);
+        this.render_cache.invalidate(uuid);
+        this.removed_players.add(uuid);
+
+        TabHeaderFooter header_footer = this.header_footer;
+
+        if (header_footer != null) {
+            header_footer.forget(uuid);
+        }
     }
 
     /**
-     * Update the Tablist's header and footer.
-     * This does a first pass of replacing non-player placeholders
+     * The given player joined a server:
+     * its entry changes for everyone, and its own tab list needs a full check
+     *
+     * @since    3.3.0
      */
-    public void updateHeaderAndFooter() {
+    private void markSwitched(UUID player_uuid) {
+        this.removed_players.remove(player_uuid);
+        this.playerChanged(player_uuid);
+        this.dirty_viewers.add(player_uuid);
 
-        FluxChatConfig config = this.plugin.getConfig();
+        // The new server might have sent its own header & footer
+        TabHeaderFooter header_footer = this.header_footer;
 
-        if (!config.hasTablistConfig()) {
-            return;
+        if (header_footer != null) {
+            header_footer.forget(player_uuid);
         }
+    }
 
-        this.tablist_header = config.getTablistHeader();
-        this.tablist_footer = config.getTablistFooter();
+    /**
+     * Update the Tablist's header and footer.
+     * This only renders the global layer,
+     * the rest is done per player in {@link #updatePlayer(Player)}
+     */
+    public void updateHeaderAndFooter() {
 
-        if (this.tablist_header != null) {
-            this.tablist_header = plugin.replaceGenericPlaceholders(this.tablist_header);
-        }
+        TabHeaderFooter header_footer = this.header_footer;
 
-        if (this.tablist_footer != null) {
-            this.tablist_footer = plugin.replaceGenericPlaceholders(this.tablist_footer);
+        if (header_footer != null) {
+            header_footer.renderGlobal(this.plugin);
         }
     }
 
+    /**
+     * Do the work that isn't specific to a player.
+     * This runs once per interval.
+     */
     public void update() {
         this.updateHeaderAndFooter();
-        this.updatePlayers();
+
+        long full_refresh_interval = this.plugin.getConfig().getTablistFullRefreshInterval();
+
+        // Placeholders in the entries can change without anyone noticing, so check everything once in a while
+        if (full_refresh_interval > 0 && System.currentTimeMillis() - this.last_full_refresh >= full_refresh_interval) {
+            this.markAllDirty();
+        }
 
         this.update_counter++;
 
@@ -118,30 +197,149 @@ public class FluxChatTabList {
     }
 
     /**
-     * Update the players in the tablist
+     * Do the periodic work of a single player:
+     * send its header & footer and check its ping.
+     * Every player is handled once per interval, in its own shard.
+     *
+     * @since    3.3.0
      */
-    public Boolean updatePlayers() {
+    public void updatePlayer(Player player) {
+
+        TabHeaderFooter header_footer = this.header_footer;
+
+        if (header_footer != null) {
+            header_footer.apply(this.plugin, player);
+        }
+
+        this.checkPing(player);
+    }
+
+    /**
+     * Mark the player as dirty if its latency changed enough
+     *
+     * @since    3.3.0
+     */
+    private void checkPing(Player player) {
+
+        long threshold = this.plugin.getConfig().getTablistPingThreshold();
+        long ping = player.getPing();
+        Long pushed = this.pushed_pings.get(player.getUniqueId());
+
+        if (pushed == null || Math.abs(ping - pushed) >= threshold) {
+            this.pushed_pings.put(player.getUniqueId(), ping);
+            this.dirty_players.add(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Do a full check of every tab list on the next flush
+     *
+     * @since    3.3.0
+     */
+    public void markAllDirty() {
+        this.last_full_refresh = System.currentTimeMillis();
+
+        for (Player player : this.proxy_server.getAllPlayers()) {
+            this.dirty_viewers.add(player.getUniqueId());
+        }
+
+        TabHeaderFooter header_footer = this.header_footer;
+
+        if (header_footer != null) {
+            header_footer.forgetAll();
+        }
+    }
+
+    /**
+     * Push all the pending changes to the tab lists
+     *
+     * @since    3.3.0
+     */
+    public void flush() {
+
+        if (this.dirty_players.isEmpty() && this.dirty_viewers.isEmpty() && this.removed_players.isEmpty()) {
+            this.idle_flush_count.incrementAndGet();
+            return;
+        }
+
+        this.flush_count.incrementAndGet();
+
+        Set<UUID> viewers = drain(this.dirty_viewers);
+        Set<UUID> removed = drain(this.removed_players);
+        List<Player> changed = new ArrayList<>();
+
+        for (UUID uuid : drain(this.dirty_players)) {
+            this.proxy_server.getPlayer(uuid).ifPresent(changed::add);
+        }
+
+        // Rendered entries are only shared within a single flush
+        this.render_cache.clear();
 
-        boolean players_changed = false;
         boolean caught_error = false;
 
         for (Player player : this.proxy_server.getAllPlayers()) {
             try {
-                if (this.updatePlayerTablist(player)) {
-                    players_changed = true;
+                if (viewers.contains(player.getUniqueId())) {
+                    this.updatePlayerTablist(player);
+                } else if (!changed.isEmpty() || !removed.isEmpty()) {
+                    this.updateChangedEntries(player, changed, removed);
                 }
             } catch (Exception err) {
 
+                // The same error usually happens for every player, only report it once per flush
                 if (!caught_error) {
-                    System.out.println("Caught tablist error for " + player.getUsername() + ": " + err.getMessage());
-                    err.printStackTrace();
+                    ErrorSentry.capture(err);
                 }
 
                 caught_error = true;
             }
         }
+    }
 
-        return players_changed;
+    /**
+     * Take everything out of the given set
+     *
+     * @since    3.3.0
+     */
+    private static Set<UUID> drain(Set<UUID> source) {
+
+        Set<UUID> result = new HashSet<>();
+        Iterator<UUID> iterator = source.iterator();
+
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+            iterator.remove();
+        }
+
+        return result;
+    }
+
+    /**
+     * Only update the entries of the given players in the viewer's tablist
+     *
+     * @since    3.3.0
+     */
+    private void updateChangedEntries(Player viewer, List<Player> changed, Set<UUID> removed) {
+
+        TabList tablist = viewer.getTabList();
+
+        for (UUID uuid : removed) {
+            if (tablist.containsEntry(uuid)) {
+                tablist.removeEntry(uuid);
+                this.entries_removed.incrementAndGet();
+            }
+        }
+
+        for (Player other_player : changed) {
+            Component display_name = this.getPlayerTabDisplay(other_player, viewer);
+            TabListEntry entry = tablist.getEntry(other_player.getUniqueId()).orElse(null);
+
+            if (entry == null) {
+                this.addEntry(tablist, other_player, display_name);
+            } else {
+                this.syncEntry(entry, other_player, display_name);
+            }
+        }
     }
 
     /**
@@ -149,78 +347,139 @@ public class FluxChatTabList {
      */
     private Boolean updatePlayerTablist(Player player) {
 
-        LegacyComponentSerializer legacy = LegacyComponentSerializer.legacyAmpersand();
         boolean players_changed = false;
 
         // Get this player's tablist
         TabList tablist = player.getTabList();
 
-        // If a tablist header/footer is set, add it now
-        if (this.tablist_header != null || this.tablist_footer != null) {
-
-            String header = "";
-            String footer = "";
-
-            if (this.tablist_header != null) {
-                header = plugin.replacePlaceholders(player, this.tablist_header);
-            }
-
-            if (this.tablist_footer != null) {
-                footer = plugin.replacePlaceholders(player, this.tablist_footer);
-            }
+        // Index the current entries, every entry left over afterwards belongs to a player that left
+        Map<UUID, TabListEntry> current_entries = new HashMap<>();
 
-            tablist.setHeaderAndFooter(legacy.deserialize(header), legacy.deserialize(footer));
+        for (TabListEntry entry : tablist.getEntries()) {
+            current_entries.put(entry.getProfile().getId(), entry);
         }
 
         // Now iterate over all the other players
         for (Player other_player : this.proxy_server.getAllPlayers()) {
 
+            TabListEntry entry = current_entries.remove(other_player.getUniqueId());
+            Component display_name = this.getPlayerTabDisplay(other_player, player);
+
             // If this other_player is not in the tablist of the current player...
-            if (!tablist.containsEntry(other_player.getUniqueId())) {
+            if (entry == null) {
                 players_changed = true;
+                this.addEntry(tablist, other_player, display_name);
+                continue;
+            }
 
-                Component display_name = this.getPlayerTabDisplay(other_player, player);
-
-                TabListEntry entry = TabListEntry.builder()
-                        // Setting a displayname here will only work if the players are on different servers
-                        //.displayName(display_name)
-                        .profile(other_player.getGameProfile())
-                        .gameMode(0) // Impossible to get player game mode from proxy, always assume survival
-                        .tabList(tablist)
-                        .build();
+            this.syncEntry(entry, other_player, display_name);
+        }
 
-                entry.setDisplayName(display_name);
-                tablist.addEntry(entry);
-            }
+        for (UUID uuid : current_entries.keySet()) {
+            tablist.removeEntry(uuid);
+            this.entries_removed.incrementAndGet();
+            players_changed = true;
         }
 
-        // Now iterate over all the tablist entries again!
-        for (TabListEntry entry : tablist.getEntries()) {
-            UUID uuid = entry.getProfile().getId();
+        return players_changed;
+    }
 
-            // See if this player is still online
-            Optional<Player> playerOptional = proxy_server.getPlayer(uuid);
+    /**
+     * Add an entry for the given player to the tablist
+     *
+     * @since    3.3.0
+     */
+    private void addEntry(TabList tablist, Player other_player, Component display_name) {
+
+        TabListEntry entry = TabListEntry.builder()
+                // Setting a displayname here will only work if the players are on different servers
+                //.displayName(display_name)
+                .profile(other_player.getGameProfile())
+                .gameMode(0) // Impossible to get player game mode from proxy, always assume survival
+                .latency((int) (other_player.getPing()))
+                .tabList(tablist)
+                .build();
+
+        entry.setDisplayName(display_name);
+        tablist.addEntry(entry);
+        this.entries_added.incrementAndGet();
+    }
 
-            // If the player is still present, update it
-            if (playerOptional.isPresent()) {
-                Player other_player = playerOptional.get();
+    /**
+     * Update an existing entry, but only the parts that actually changed.
+     * The entry itself holds the state the viewer last received,
+     * including any changes the backend server made to it.
+     *
+     * @since    3.3.0
+     */
+    private void syncEntry(TabListEntry entry, Player other_player, Component display_name) {
 
-                // Update ping
-                entry.setLatency((int) (other_player.getPing()));
+        int latency = (int) other_player.getPing();
 
-                Component display_name = this.getPlayerTabDisplay(other_player, player);
+        if (entry.getLatency() != latency) {
+            entry.setLatency(latency);
+            this.updates_sent.incrementAndGet();
+        } else {
+            this.updates_suppressed.incrementAndGet();
+        }
 
-                if (display_name != null) {
-                    entry.setDisplayName(display_name);
-                }
+        if (display_name == null) {
+            return;
+        }
 
-            } else {
-                player.getTabList().removeEntry(uuid);
-                players_changed = true;
-            }
+        if (!display_name.equals(entry.getDisplayNameComponent().orElse(null))) {
+            entry.setDisplayName(display_name);
+            this.updates_sent.incrementAndGet();
+        } else {
+            this.updates_suppressed.incrementAndGet();
         }
+    }
 
-        return players_changed;
+    /**
+     * Something that is shown in the tab entry of the given player changed
+     *
+     * @since    3.3.0
+     */
+    public void playerChanged(UUID player_uuid) {
+        this.render_cache.invalidate(player_uuid);
+        this.dirty_players.add(player_uuid);
+    }
+
+    public long getFlushCount() {
+        return this.flush_count.get();
+    }
+
+    public long getIdleFlushCount() {
+        return this.idle_flush_count.get();
+    }
+
+    public int getDirtyCount() {
+        return this.dirty_players.size() + this.dirty_viewers.size();
+    }
+
+    @Nullable
+    public TabHeaderFooter getHeaderFooter() {
+        return this.header_footer;
+    }
+
+    public TabRenderCache getRenderCache() {
+        return this.render_cache;
+    }
+
+    public long getEntriesAdded() {
+        return this.entries_added.get();
+    }
+
+    public long getEntriesRemoved() {
+        return this.entries_removed.get();
+    }
+
+    public long getUpdatesSent() {
+        return this.updates_sent.get();
+    }
+
+    public long getUpdatesSuppressed() {
+        return this.updates_suppressed.get();
     }
 
     /**
@@ -234,18 +493,36 @@ public class FluxChatTabList {
      */
     public Component getPlayerTabDisplay(Player other_player, Player current_player) {
 
-        FluxChatPlayer other_gplayer = FluxChatPlayer.get(other_player);
-
-        ServerConnection other_connection = other_player.getCurrentServer().orElse(null);
         ServerConnection current_connection = current_player.getCurrentServer().orElse(null);
-
-        ServerInfo other_server = null;
         ServerInfo target_server = null;
 
         if (current_connection != null) {
             target_server = current_connection.getServer().getServerInfo();
         }
 
+        // The entry is the same for every viewer on the same server
+        ServerInfo viewer_server = target_server;
+        String viewer_server_name = target_server == null ? null : target_server.getName();
+
+        return this.render_cache.get(other_player.getUniqueId(), viewer_server_name, () -> this.renderPlayerTabDisplay(other_player, viewer_server));
+    }
+
+    /**
+     * Actually render the tablist entry of the given player
+     * as seen from the given server
+     *
+     * @param   other_player     The other player to create the entry for
+     * @param   target_server    The server of the viewer
+     *
+     * @return  The constructed tablist entry
+     *
+     * @since    3.3.0
+     */
+    private Component renderPlayerTabDisplay(Player other_player, ServerInfo target_server) {
+
+        FluxChatPlayer other_gplayer = FluxChatPlayer.get(other_player);
+        ServerConnection other_connection = other_player.getCurrentServer().orElse(null);
+
         TextComponent display_name = other_gplayer.formatForServer(target_server, "tab-entry", null);
 
         if (display_name == null) {
@@ -257,8 +534,8 @@ public class FluxChatTabList {
 
             String current_server_name = null;
 
-            if (current_connection != null) {
-                current_server_name = current_connection.getServer().getServerInfo().getName();
+            if (target_server != null) {
+                current_server_name = target_server.getName();
             }
 
             if (!server_name.equals(current_server_name)) {
@@ -0,0 +1,358 @@
+package rocks.blackblock.fluxchat.tab;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ServerConnection;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.fluxchat.FluxChatPlugin;
+import rocks.blackblock.fluxchat.config.FluxChatConfig;
+import rocks.blackblock.fluxchat.placeholder.StringTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The configured tab list header & footer, compiled once per config load.
+ *
+ * Every placeholder slot is tagged with a layer when compiling:
+ * global placeholders are rendered once per refresh,
+ * server placeholders once per server and everything else once per player.
+ * Each layer only fills in its own slots, the text is never parsed again.
+ * What was last sent to each player is remembered,
+ * so an unchanged header & footer is never sent again.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class TabHeaderFooter {
+
+    // The placeholders that are the same for every player on the same server
+    private static final Set<String> SERVER_PLACEHOLDERS = Set.of("server_name", "tps", "mspt", "server_load", "server_load_coloured");
+
+    private final LayeredTemplate header;
+    private final LayeredTemplate footer;
+    private final boolean has_server_slots;
+    private final boolean has_player_slots;
+
+    // The header & footer with the global placeholders filled in,
+    // its server layers are replaced together with it
+    private volatile Rendered global = null;
+
+    private final Map<UUID, Sent> sent = new ConcurrentHashMap<>();
+
+    private final AtomicLong sent_count = new AtomicLong();
+    private final AtomicLong suppressed_count = new AtomicLong();
+
+    /**
+     * Create the instance
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private TabHeaderFooter(@Nullable String header, @Nullable String footer) {
+        this.header = LayeredTemplate.compile(header);
+        this.footer = LayeredTemplate.compile(footer);
+        this.has_server_slots = this.header.hasSlots(Layer.SERVER) || this.footer.hasSlots(Layer.SERVER);
+        this.has_player_slots = this.header.hasSlots(Layer.PLAYER) || this.footer.hasSlots(Layer.PLAYER);
+    }
+
+    /**
+     * Compile the header & footer of the given config,
+     * or return null if there is none
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public static TabHeaderFooter compile(FluxChatConfig config) {
+
+        if (!config.hasTablistConfig()) {
+            return null;
+        }
+
+        return new TabHeaderFooter(config.getTablistHeader(), config.getTablistFooter());
+    }
+
+    /**
+     * Render the global layer.
+     * This starts a new refresh, so the server layers are rendered again too.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void renderGlobal(FluxChatPlugin plugin) {
+
+        Function<String, String> resolver = plugin::lookupGenericPlaceholder;
+
+        this.global = new Rendered(
+                this.header.fill(this.header.createParts(), Layer.GLOBAL, resolver),
+                this.footer.fill(this.footer.createParts(), Layer.GLOBAL, resolver),
+                new ConcurrentHashMap<>()
+        );
+    }
+
+    /**
+     * Send the header & footer to the given player, unless it hasn't changed.
+     * Returns true if it was sent.
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public boolean apply(FluxChatPlugin plugin, Player player) {
+
+        Rendered rendered = this.global;
+
+        if (rendered == null) {
+            return false;
+        }
+
+        if (this.has_server_slots) {
+            ServerConnection connection = player.getCurrentServer().orElse(null);
+
+            if (connection != null) {
+                // The first player on a server renders the layer for everyone on it
+                Rendered global = rendered;
+                rendered = global.server_layers().computeIfAbsent(connection.getServerInfo().getName(), key -> this.renderServer(plugin, player, global));
+            } else {
+                rendered = this.renderServer(plugin, player, rendered);
+            }
+        }
+
+        String[] header_parts = rendered.header();
+        String[] footer_parts = rendered.footer();
+
+        if (this.has_player_slots) {
+            Function<String, String> resolver = definition -> plugin.resolveStringPlaceholder(player, definition);
+            header_parts = this.header.fill(header_parts, Layer.PLAYER, resolver);
+            footer_parts = this.footer.fill(footer_parts, Layer.PLAYER, resolver);
+        }
+
+        Sent result = new Sent(this.header.join(header_parts), this.footer.join(footer_parts));
+
+        if (result.equals(this.sent.put(player.getUniqueId(), result))) {
+            this.suppressed_count.incrementAndGet();
+            return false;
+        }
+
+        LegacyComponentSerializer legacy = LegacyComponentSerializer.legacyAmpersand();
+        player.getTabList().setHeaderAndFooter(legacy.deserialize(result.header()), legacy.deserialize(result.footer()));
+        this.sent_count.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Fill in the server placeholders of the given layer,
+     * using the given player on that server
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    private Rendered renderServer(FluxChatPlugin plugin, Player player, Rendered global) {
+
+        Function<String, String> resolver = definition -> plugin.resolveStringPlaceholder(player, definition);
+
+        return new Rendered(
+                this.header.fill(global.header(), Layer.SERVER, resolver),
+                this.footer.fill(global.footer(), Layer.SERVER, resolver),
+                Map.of()
+        );
+    }
+
+    /**
+     * Forget what was sent to the given player,
+     * so the next refresh sends it again
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void forget(UUID player_uuid) {
+        this.sent.remove(player_uuid);
+    }
+
+    /**
+     * Forget what was sent to everyone
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void forgetAll() {
+        this.sent.clear();
+    }
+
+    public long getSentCount() {
+        return this.sent_count.get();
+    }
+
+    public long getSuppressedCount() {
+        return this.suppressed_count.get();
+    }
+
+    /**
+     * What a placeholder depends on
+     *
+     * @since    3.3.0
+     */
+    private enum Layer {
+        GLOBAL,
+        SERVER,
+        PLAYER;
+
+        private static Layer of(String definition) {
+
+            String name = definition.toLowerCase(Locale.ROOT);
+
+            if (FluxChatPlugin.GENERIC_PLACEHOLDERS.contains(name)) {
+                return GLOBAL;
+            }
+
+            if (SERVER_PLACEHOLDERS.contains(name)) {
+                return SERVER;
+            }
+
+            return PLAYER;
+        }
+    }
+
+    /**
+     * The segments of a header or footer, with every slot tagged by its layer.
+     * Rendering works on an array of parts (1 per segment),
+     * where every layer fills in its own slots.
+     *
+     * @since    3.3.0
+     */
+    private static final class LayeredTemplate {
+
+        private final String[] segments;
+        private final Layer[] layers;
+
+        private LayeredTemplate(String[] segments, Layer[] layers) {
+            this.segments = segments;
+            this.layers = layers;
+        }
+
+        /**
+         * Compile the given text, a missing text is an empty template
+         *
+         * @since    3.3.0
+         */
+        private static LayeredTemplate compile(@Nullable String source) {
+
+            if (source == null) {
+                return new LayeredTemplate(new String[0], new Layer[0]);
+            }
+
+            StringTemplate template = StringTemplate.compile(source);
+            int count = template.getSegmentCount();
+            String[] segments = new String[count];
+            Layer[] layers = new Layer[count];
+
+            for (int i = 0; i < count; i++) {
+                segments[i] = template.getSegment(i);
+
+                // Literals don't have a layer
+                if (template.isSlot(i)) {
+                    layers[i] = Layer.of(segments[i]);
+                }
+            }
+
+            return new LayeredTemplate(segments, layers);
+        }
+
+        private boolean hasSlots(Layer layer) {
+
+            for (Layer current : this.layers) {
+                if (current == layer) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Get the parts before any layer has been rendered:
+         * literals are filled in, slots are still null
+         *
+         * @since    3.3.0
+         */
+        private String[] createParts() {
+
+            String[] parts = new String[this.segments.length];
+
+            for (int i = 0; i < parts.length; i++) {
+                if (this.layers[i] == null) {
+                    parts[i] = this.segments[i];
+                }
+            }
+
+            return parts;
+        }
+
+        /**
+         * Return a copy of the given parts with the slots of the given layer filled in.
+         * Slots that can not be resolved are kept as-is.
+         *
+         * @since    3.3.0
+         */
+        private String[] fill(String[] parts, Layer layer, Function<String, String> resolver) {
+
+            if (!this.hasSlots(layer)) {
+                return parts;
+            }
+
+            String[] result = parts.clone();
+
+            for (int i = 0; i < result.length; i++) {
+
+                if (this.layers[i] != layer) {
+                    continue;
+                }
+
+                String value = resolver.apply(this.segments[i]);
+                result[i] = value == null ? "{" + this.segments[i] + "}" : value;
+            }
+
+            return result;
+        }
+
+        /**
+         * Join the parts into the final text
+         *
+         * @since    3.3.0
+         */
+        private String join(String[] parts) {
+
+            StringBuilder builder = new StringBuilder();
+
+            for (int i = 0; i < parts.length; i++) {
+                String part = parts[i];
+
+                // Only the layers that are in use get rendered
+                builder.append(part == null ? "{" + this.segments[i] + "}" : part);
+            }
+
+            return builder.toString();
+        }
+    }
+
+    /**
+     * A partially rendered header & footer.
+     * A global layer keeps the server layers that were rendered from it, per server name.
+     *
+     * @since    3.3.0
+     */
+    private record Rendered(String[] header, String[] footer, Map<String, Rendered> server_layers) {}
+
+    /**
+     * The header & footer that were last sent to a player
+     *
+     * @since    3.3.0
+     */
+    private record Sent(String header, String footer) {}
+}
@@ -0,0 +1,91 @@
+package rocks.blackblock.fluxchat.tab;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the rendered tab entry of every player per viewer server.
+ *
+ * A tab entry only depends on the player and the server of the viewer,
+ * so all viewers on the same server share a single render.
+ * The cache is cleared before every refresh, and the entries of a player
+ * are dropped as soon as something that is shown in the tab list changes.
+ *
+ * @author   Jelle De Loecker
+ * @since    3.3.0
+ */
+public class TabRenderCache {
+
+    private final Map<Key, Optional<Component>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Get the rendered entry of the given player on the given server,
+     * rendering it if needed
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    @Nullable
+    public Component get(UUID player_uuid, @Nullable String viewer_server, Supplier<Component> renderer) {
+
+        Key key = new Key(player_uuid, viewer_server);
+        Optional<Component> result = this.entries.get(key);
+
+        if (result != null) {
+            this.hits.incrementAndGet();
+            return result.orElse(null);
+        }
+
+        this.misses.incrementAndGet();
+
+        result = Optional.ofNullable(renderer.get());
+        this.entries.put(key, result);
+
+        return result.orElse(null);
+    }
+
+    /**
+     * Forget the rendered entries of the given player
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void invalidate(UUID player_uuid) {
+        this.entries.keySet().removeIf(key -> key.player_uuid().equals(player_uuid));
+    }
+
+    /**
+     * Forget everything
+     *
+     * @author   Jelle De Loecker
+     * @since    3.3.0
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * A player as seen from a server
+     *
+     * @since    3.3.0
+     */
+    private record Key(UUID player_uuid, @Nullable String viewer_server) {}
+}